@@ -0,0 +1,27 @@
+package com.example.soapclient.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// --key=value command line arguments for the load-test tools
+final class Arguments {
+
+    private Arguments() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                arguments.put(arg.substring(2), "true");
+            } else {
+                arguments.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return arguments;
+    }
+}
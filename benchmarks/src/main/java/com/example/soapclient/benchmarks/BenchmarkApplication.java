@@ -0,0 +1,52 @@
+package com.example.soapclient.benchmarks;
+
+import com.example.soapclient.SoapClientApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// Boots the real application context (no web server) with the given services, and gives
+// benchmarks access to the private hot-path methods they measure.
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    // Services: "plain" (no security header) and "signed" (custom wsse:Security header),
+    // both pointing at the stub
+    static ConfigurableApplicationContext start(StubSoapServer stub) {
+        String service = "\"url\":\"%s\",\"headerRequired\":%s,\"startTag\":\"<Add>\",\"endTag\":\"</Add>\"," +
+                "\"requestNamespace\":\"http://tempuri.org/\",\"bodyNamespace\":\"http://tempuri.org/\"," +
+                "\"soapAction\":\"http://tempuri.org/Add\",\"username\":\"calc_user\",\"correlation\":\"CALC_123\"";
+        String services = "{\"plain\":{" + String.format(service, stub.url("/plain"), false) + "}," +
+                "\"signed\":{" + String.format(service, stub.url("/signed"), true) + "}}";
+
+        return new SpringApplicationBuilder(SoapClientApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--soap.services=" + services,
+                        "--soap.proxy.mode=sync",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.ws=WARN",
+                        "--logging.level.org.apache.http=WARN",
+                        "--logging.level.org.apache.http.wire=WARN",
+                        "--logging.level.com.example.soapclient=WARN");
+    }
+
+    static MethodHandle privateMethod(Object target, String name, Class<?>... parameterTypes) throws Exception {
+        Method method = target.getClass().getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method).bindTo(target);
+    }
+
+    static Object privateStatic(Class<?> type, String name) throws Exception {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+}
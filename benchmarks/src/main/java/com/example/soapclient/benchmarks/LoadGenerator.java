@@ -0,0 +1,178 @@
+package com.example.soapclient.benchmarks;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives POST /api/soap/{serviceName} at a target rate and concurrency and reports
+// throughput and latency percentiles. With --rps set, requests are scheduled at fixed
+// intervals and latency is measured from the scheduled start, so a stalled server shows
+// up as queueing delay instead of silently lowering the offered load. --rps=0 runs
+// closed-loop at maximum throughput.
+//
+//   java -cp benchmarks/target/benchmarks.jar com.example.soapclient.benchmarks.LoadGenerator \
+//        --url=http://127.0.0.1:8091/api/soap/calculator --rps=500 --concurrency=64 --duration-s=60
+public class LoadGenerator {
+
+    private static final String DEFAULT_PAYLOAD =
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>" +
+            "<Add xmlns=\"http://tempuri.org/\"><intA>10</intA><intB>20</intB></Add>" +
+            "</soap:Body></soap:Envelope>";
+
+    private final URL url;
+
+    private final byte[] payload;
+
+    private final String soapAction;
+
+    private final int rps;
+
+    private final int concurrency;
+
+    private final long warmupNanos;
+
+    private final long durationNanos;
+
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(2), 3);
+
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private final AtomicLong tickets = new AtomicLong();
+
+    LoadGenerator(URL url, byte[] payload, String soapAction, int rps, int concurrency,
+                  long warmupSeconds, long durationSeconds) {
+        this.url = url;
+        this.payload = payload;
+        this.soapAction = soapAction;
+        this.rps = rps;
+        this.concurrency = concurrency;
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    void run() throws InterruptedException {
+        long intervalNanos = rps > 0 ? TimeUnit.SECONDS.toNanos(1) / rps : 0;
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> work(start, intervalNanos, measureFrom, end), "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report(System.nanoTime() - measureFrom);
+    }
+
+    private void work(long start, long intervalNanos, long measureFrom, long end) {
+        while (true) {
+            long intended = intervalNanos > 0 ? start + tickets.getAndIncrement() * intervalNanos : System.nanoTime();
+            if (intended >= end) {
+                return;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+
+            String outcome = send();
+            long finished = System.nanoTime();
+            if (intended >= measureFrom) {
+                latencies.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(finished - intended)));
+                outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    private String send() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(payload.length);
+            connection.setRequestProperty("Content-Type", "text/xml; charset=utf-8");
+            if (soapAction != null) {
+                connection.setRequestProperty("SOAPAction", soapAction);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(payload);
+            }
+            int status = connection.getResponseCode();
+            // Read the body fully so the connection goes back to the keep-alive cache
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream in = body) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) != -1) {
+                        // discard
+                    }
+                }
+            }
+            return String.valueOf(status);
+        } catch (IOException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    private void report(long measuredNanos) {
+        long count = latencies.getTotalCount();
+        double seconds = measuredNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("target        %s rps, concurrency %d%n", rps > 0 ? String.valueOf(rps) : "max", concurrency);
+        System.out.printf("requests      %d in %.1fs%n", count, seconds);
+        System.out.printf("throughput    %.1f req/s%n", count / seconds);
+        System.out.printf("outcomes      %s%n", outcomes);
+        System.out.printf("latency (ms)  p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f mean=%.2f%n",
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                latencies.getMean() / 1000.0);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = Arguments.parse(args);
+        int concurrency = Integer.parseInt(arguments.getOrDefault("concurrency", "64"));
+        // The JDK keeps only 5 idle connections per host by default
+        System.setProperty("http.maxConnections", String.valueOf(concurrency));
+
+        String payloadFile = arguments.get("payload");
+        byte[] payload = payloadFile != null ?
+                Files.readAllBytes(Paths.get(payloadFile)) : DEFAULT_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+        new LoadGenerator(
+                new URL(arguments.getOrDefault("url", "http://127.0.0.1:8091/api/soap/calculator")),
+                payload,
+                arguments.get("soap-action"),
+                Integer.parseInt(arguments.getOrDefault("rps", "0")),
+                concurrency,
+                Long.parseLong(arguments.getOrDefault("warmup-s", "5")),
+                Long.parseLong(arguments.getOrDefault("duration-s", "30"))
+        ).run();
+    }
+}
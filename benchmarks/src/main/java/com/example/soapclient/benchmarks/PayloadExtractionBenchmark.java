@@ -0,0 +1,54 @@
+package com.example.soapclient.benchmarks;
+
+import com.example.soapclient.xml.OperationPayloadExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.xml.transform.TransformerHelper;
+import org.w3c.dom.Node;
+
+import javax.xml.transform.dom.DOMResult;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+// Locating the operation element and rewriting it into the request namespace, from raw
+// bytes into a DOM (what the SAAJ message body receives), on small and multi-MB payloads.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadExtractionBenchmark {
+
+    @Param({"1024", "1048576", "4194304"})
+    private int payloadBytes;
+
+    private byte[] payload;
+
+    private OperationPayloadExtractor extractor;
+
+    private TransformerHelper transformerHelper;
+
+    @Setup
+    public void setUp() {
+        payload = Payloads.addRequest(payloadBytes);
+        extractor = new OperationPayloadExtractor("<Add>", "</Add>", "http://tempuri.org/");
+        transformerHelper = new TransformerHelper();
+    }
+
+    @Benchmark
+    public Node extractAndRewrite() throws Exception {
+        DOMResult result = new DOMResult();
+        transformerHelper.transform(extractor.extract(new ByteArrayInputStream(payload)), result);
+        return result.getNode();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.soapclient.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+// Incoming proxy payloads of a given size: an <Add> operation padded with repeated
+// child elements, wrapped in a SOAP envelope like real callers send.
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static byte[] addRequest(int targetBytes) {
+        StringBuilder xml = new StringBuilder(targetBytes + 256);
+        xml.append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>")
+                .append("<Add><intA>10</intA><intB>20</intB>");
+        int item = 0;
+        while (xml.length() < targetBytes) {
+            xml.append("<item id=\"").append(item++).append("\">lorem ipsum dolor sit amet</item>");
+        }
+        xml.append("</Add></soap:Body></soap:Envelope>");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.soapclient.benchmarks;
+
+import com.example.soapclient.service.SoapProxyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Full SoapProxyService.processSoapRequest round-trips against the in-process stub,
+// with and without the security header. Run with -t to measure under concurrency.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessSoapRequestBenchmark {
+
+    private static final Map<String, String> NO_HEADERS = Collections.emptyMap();
+
+    @Param({"plain", "signed"})
+    private String serviceName;
+
+    @Param({"1024", "1048576"})
+    private int payloadBytes;
+
+    private StubSoapServer stub;
+
+    private ConfigurableApplicationContext context;
+
+    private SoapProxyService soapProxyService;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new StubSoapServer(16);
+        context = BenchmarkApplication.start(stub);
+        soapProxyService = context.getBean(SoapProxyService.class);
+        payload = Payloads.addRequest(payloadBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String processSoapRequest() {
+        return soapProxyService.processSoapRequest(serviceName, new ByteArrayInputStream(payload), null, NO_HEADERS);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.soapclient.benchmarks;
+
+import com.example.soapclient.config.RequestPlan;
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.security.SecurityHeaderSigner;
+import com.example.soapclient.service.SoapProxyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.soap.SoapMessage;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+// The security header path: canonicalizing SignedInfo, RSA-signing it, a full sign()
+// (digest + signature), and SoapProxyService.addSecurityHeader end to end on a fresh
+// message (cache lookup + DOM write), which is what each signed request pays.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final String DIGEST = "2jmj7l5rSw0yVb/vlWAYkK/YBwk=";
+
+    private StubSoapServer stub;
+
+    private ConfigurableApplicationContext context;
+
+    private SecurityHeaderSigner signer;
+
+    private RequestPlan plan;
+
+    private WebServiceMessageFactory messageFactory;
+
+    private String signedInfo;
+
+    private MethodHandle canonicalize;
+
+    private MethodHandle createSignature;
+
+    private MethodHandle addSecurityHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new StubSoapServer(4);
+        context = BenchmarkApplication.start(stub);
+        signer = context.getBean(SecurityHeaderSigner.class);
+        plan = context.getBean(RequestPlanRegistry.class).getPlan("signed");
+        messageFactory = plan.getWebServiceTemplate().getMessageFactory();
+
+        signedInfo = (String) BenchmarkApplication.privateStatic(SecurityHeaderSigner.class, "SIGNED_INFO");
+        canonicalize = BenchmarkApplication.privateMethod(signer, "canonicalize", String.class);
+        createSignature = BenchmarkApplication.privateMethod(signer, "createSignature", String.class, String.class);
+        addSecurityHeader = BenchmarkApplication.privateMethod(context.getBean(SoapProxyService.class),
+                "addSecurityHeader", SoapMessage.class, RequestPlan.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public byte[] canonicalize() throws Throwable {
+        return (byte[]) canonicalize.invoke(signedInfo);
+    }
+
+    @Benchmark
+    public String createSignature() throws Throwable {
+        return (String) createSignature.invoke("SHA1withRSA", DIGEST);
+    }
+
+    @Benchmark
+    public Object sign() throws Exception {
+        return signer.sign("calc_user", "CALC_123", SecurityHeaderSigner.currentMinuteBucket());
+    }
+
+    @Benchmark
+    public SoapMessage addSecurityHeader() throws Throwable {
+        SoapMessage message = (SoapMessage) messageFactory.createWebServiceMessage();
+        addSecurityHeader.invoke(message, plan);
+        return message;
+    }
+}
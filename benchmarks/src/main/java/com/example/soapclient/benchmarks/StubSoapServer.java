@@ -0,0 +1,195 @@
+package com.example.soapclient.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Stand-in for the calculator service (Add, Subtract, Multiply, Divide from calculator.wsdl)
+// with configurable latency, jitter, fault rate and response size. Latency is applied by
+// scheduling the reply, so slow responses don't hold a server thread each.
+//
+// Used in-process by the JMH benchmarks, or standalone for load tests:
+//   java -cp benchmarks/target/benchmarks.jar com.example.soapclient.benchmarks.StubSoapServer \
+//        --port=9099 --latency-ms=50 --jitter-ms=20 --error-rate=0.01 --response-bytes=4096
+public class StubSoapServer implements AutoCloseable {
+
+    private static final Pattern OPERATION = Pattern.compile("<(?:[\\w.-]+:)?(Add|Subtract|Multiply|Divide)[\\s>/]");
+
+    private static final Pattern INT_A = Pattern.compile("<(?:[\\w.-]+:)?intA>\\s*(-?\\d+)\\s*<");
+
+    private static final Pattern INT_B = Pattern.compile("<(?:[\\w.-]+:)?intB>\\s*(-?\\d+)\\s*<");
+
+    static {
+        // Headers and body are written separately; without this Nagle + delayed ACK
+        // add ~40ms to every exchange and drown out what is being measured
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public static class Options {
+        int port;                 // 0 picks a free port
+        int threads = 16;         // request parsing threads
+        long latencyMs;           // fixed delay before each response
+        long jitterMs;            // plus a uniformly random 0..jitterMs
+        double errorRate;         // fraction of requests answered with a SOAP fault (HTTP 500)
+        int responseBytes;        // pad responses (in a SOAP header) to at least this size
+    }
+
+    private final Options options;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService delayer;
+
+    public StubSoapServer(int threads) throws IOException {
+        this(withThreads(threads));
+    }
+
+    public StubSoapServer(Options options) throws IOException {
+        this.options = options;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port), 4096);
+        executor = Executors.newFixedThreadPool(options.threads);
+        delayer = Executors.newScheduledThreadPool(2);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delayer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String request = readBody(exchange);
+        byte[] response;
+        int status;
+        if (options.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < options.errorRate) {
+            status = 500;
+            response = envelope("<soap:Fault><faultcode>soap:Server</faultcode>" +
+                    "<faultstring>Injected stub failure</faultstring></soap:Fault>");
+        } else {
+            Matcher operation = OPERATION.matcher(request);
+            if (operation.find()) {
+                status = 200;
+                String name = operation.group(1);
+                response = envelope("<" + name + "Response xmlns=\"http://tempuri.org/\"><" + name + "Result>" +
+                        calculate(name, intValue(INT_A, request), intValue(INT_B, request)) +
+                        "</" + name + "Result></" + name + "Response>");
+            } else {
+                status = 500;
+                response = envelope("<soap:Fault><faultcode>soap:Client</faultcode>" +
+                        "<faultstring>Unknown operation</faultstring></soap:Fault>");
+            }
+        }
+
+        long delay = options.latencyMs +
+                (options.jitterMs > 0 ? ThreadLocalRandom.current().nextLong(options.jitterMs + 1) : 0);
+        if (delay > 0) {
+            delayer.schedule(() -> respond(exchange, status, response), delay, TimeUnit.MILLISECONDS);
+        } else {
+            respond(exchange, status, response);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] response) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private byte[] envelope(String body) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>")
+                .append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">");
+        int padding = options.responseBytes - xml.length() - body.length() - 120;
+        if (padding > 0) {
+            xml.append("<soap:Header><Padding xmlns=\"urn:stub\">");
+            for (int i = 0; i < padding; i++) {
+                xml.append('x');
+            }
+            xml.append("</Padding></soap:Header>");
+        }
+        xml.append("<soap:Body>").append(body).append("</soap:Body></soap:Envelope>");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int calculate(String operation, int a, int b) {
+        switch (operation) {
+            case "Subtract":
+                return a - b;
+            case "Multiply":
+                return a * b;
+            case "Divide":
+                return b != 0 ? a / b : 0;
+            default:
+                return a + b;
+        }
+    }
+
+    private static int intValue(Pattern pattern, String request) {
+        Matcher matcher = pattern.matcher(request);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Options withThreads(int threads) {
+        Options options = new Options();
+        options.threads = threads;
+        return options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = Arguments.parse(args);
+        Options options = new Options();
+        options.port = Integer.parseInt(arguments.getOrDefault("port", "9099"));
+        options.threads = Integer.parseInt(arguments.getOrDefault("threads", "16"));
+        options.latencyMs = Long.parseLong(arguments.getOrDefault("latency-ms", "0"));
+        options.jitterMs = Long.parseLong(arguments.getOrDefault("jitter-ms", "0"));
+        options.errorRate = Double.parseDouble(arguments.getOrDefault("error-rate", "0"));
+        options.responseBytes = Integer.parseInt(arguments.getOrDefault("response-bytes", "0"));
+
+        StubSoapServer stub = new StubSoapServer(options);
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        System.out.printf("Stub SOAP server on %s (latency %dms + 0..%dms, error rate %.3f, response >= %d bytes)%n",
+                stub.url("/"), options.latencyMs, options.jitterMs, options.errorRate, options.responseBytes);
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.soapclient.audit;
+
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.config.ServicesReloadedEvent;
+import com.example.soapclient.config.SoapServiceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Writes request/response payloads to the dedicated "soap.payload.audit" logger, which
+// logback-spring.xml routes through an async, non-blocking appender. Only a sample of
+// requests is captured, plus every failed request and every request slower than the
+// threshold; payloads are truncated to soap.audit.max-bytes.
+@Component
+public class PayloadAuditLogger {
+
+    public static final String AUDIT_LOGGER = "soap.payload.audit";
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadAuditLogger.class);
+    private static final Logger auditLog = LoggerFactory.getLogger(AUDIT_LOGGER);
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${soap.audit.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Value("${soap.audit.slow-threshold-ms:2000}")
+    private long slowThresholdMs;
+
+    @Value("${soap.audit.max-bytes:4096}")
+    private int maxBytes;
+
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+        logger.info("Payload audit {} (sampleRate={}, slowThresholdMs={}, maxBytes={})",
+                enabled ? "enabled" : "disabled", sampleRate, slowThresholdMs, maxBytes);
+    }
+
+    // Sampling and slow thresholds follow the reloaded configuration
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        for (String serviceName : event.getChangedServices()) {
+            register(serviceName, event.getServiceConfigs().get(serviceName));
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            policies.remove(serviceName);
+        }
+    }
+
+    // Starts capturing one request; the sampling decision is made here, the slow and
+    // failure triggers once the request completes
+    public PayloadCapture begin(String serviceName) {
+        Policy policy = policies.get(serviceName);
+        if (!enabled || policy == null || !auditLog.isInfoEnabled()) {
+            return PayloadCapture.DISABLED;
+        }
+        boolean sampled = policy.sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < policy.sampleRate;
+        return new PayloadCapture(this, serviceName, sampled, policy.slowThresholdNanos, maxBytes);
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        double rate = serviceConfig.getAuditSampleRate() != null ? serviceConfig.getAuditSampleRate() : sampleRate;
+        long threshold = serviceConfig.getAuditSlowThresholdMs() != null ?
+                serviceConfig.getAuditSlowThresholdMs() : slowThresholdMs;
+        policies.put(serviceName, new Policy(rate, TimeUnit.MILLISECONDS.toNanos(threshold)));
+    }
+
+    void write(String serviceName, String trigger, long elapsedNanos, String request, String response, Throwable error) {
+        auditLog.info("service={} trigger={} elapsedMs={} error={}\n  request: {}\n  response: {}",
+                serviceName, trigger, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                error != null ? error.toString() : "-", request, response);
+    }
+
+    private static final class Policy {
+        final double sampleRate;
+        final long slowThresholdNanos;
+
+        Policy(double sampleRate, long slowThresholdNanos) {
+            this.sampleRate = sampleRate;
+            this.slowThresholdNanos = slowThresholdNanos;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.soapclient.audit;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Payload capture for one request. The request and response streams are teed into
+// buffers capped at maxBytes, so an uncaptured request costs at most one bounded copy;
+// nothing is formatted unless the request ends up being audited.
+public class PayloadCapture {
+
+    static final PayloadCapture DISABLED = new PayloadCapture(null, null, false, 0, 0);
+
+    private final PayloadAuditLogger auditLogger;
+    private final String serviceName;
+    private final boolean sampled;
+    private final long slowThresholdNanos;
+    private final long start = System.nanoTime();
+    private final BoundedBuffer request;
+    private final BoundedBuffer response;
+    private String requestText;
+
+    PayloadCapture(PayloadAuditLogger auditLogger, String serviceName, boolean sampled, long slowThresholdNanos,
+                   int maxBytes) {
+        this.auditLogger = auditLogger;
+        this.serviceName = serviceName;
+        this.sampled = sampled;
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.request = new BoundedBuffer(maxBytes);
+        this.response = new BoundedBuffer(maxBytes);
+    }
+
+    public InputStream request(InputStream in) {
+        return auditLogger == null ? in : new TeeInputStream(in, request);
+    }
+
+    public void request(String payload) {
+        requestText = payload;
+    }
+
+    public OutputStream response(OutputStream out) {
+        return auditLogger == null ? out : new TeeOutputStream(out, response);
+    }
+
+    public void success(String responsePayload) {
+        finish(responsePayload, null);
+    }
+
+    public void success() {
+        finish(null, null);
+    }
+
+    public void failure(Throwable error) {
+        finish(null, error);
+    }
+
+    private void finish(String responsePayload, Throwable error) {
+        if (auditLogger == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        String trigger = error != null ? "error" :
+                sampled ? "sampled" :
+                slowThresholdNanos > 0 && elapsed >= slowThresholdNanos ? "slow" : null;
+        if (trigger == null) {
+            return;
+        }
+        String requestPayload = requestText != null ? request.truncate(requestText) : request.toText();
+        String capturedResponse = responsePayload != null ? response.truncate(responsePayload) : response.toText();
+        auditLogger.write(serviceName, trigger, elapsed, requestPayload, capturedResponse, error);
+    }
+
+    // Keeps the first maxBytes written to it and counts the rest
+    private static final class BoundedBuffer {
+        private final byte[] bytes;
+        private int size;
+        private long total;
+
+        BoundedBuffer(int maxBytes) {
+            this.bytes = new byte[maxBytes];
+        }
+
+        void append(int b) {
+            if (size < bytes.length) {
+                bytes[size++] = (byte) b;
+            }
+            total++;
+        }
+
+        void append(byte[] b, int off, int len) {
+            int n = Math.min(len, bytes.length - size);
+            if (n > 0) {
+                System.arraycopy(b, off, bytes, size, n);
+                size += n;
+            }
+            total += len;
+        }
+
+        String toText() {
+            String text = new String(bytes, 0, size, StandardCharsets.UTF_8);
+            return total > size ? text + "...[truncated, " + total + " bytes]" : text;
+        }
+
+        String truncate(String text) {
+            return text.length() > bytes.length ?
+                    text.substring(0, bytes.length) + "...[truncated, " + text.length() + " chars]" : text;
+        }
+    }
+
+    private static final class TeeInputStream extends FilterInputStream {
+        private final BoundedBuffer buffer;
+
+        TeeInputStream(InputStream in, BoundedBuffer buffer) {
+            super(in);
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                buffer.append(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                buffer.append(b, off, n);
+            }
+            return n;
+        }
+    }
+
+    private static final class TeeOutputStream extends FilterOutputStream {
+        private final BoundedBuffer buffer;
+
+        TeeOutputStream(OutputStream out, BoundedBuffer buffer) {
+            super(out);
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            buffer.append(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            buffer.append(b, off, len);
+        }
+    }
+}
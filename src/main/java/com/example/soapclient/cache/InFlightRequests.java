@@ -0,0 +1,76 @@
+package com.example.soapclient.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Single-flight coalescing: while an upstream call for a fingerprint is running, identical
+// requests wait for its result instead of issuing their own call. The first caller runs
+// the call on its own thread; nothing is kept once it completes. Requests served by
+// another caller's call are counted in soap.proxy.coalesced, tagged by service.
+@Component
+public class InFlightRequests {
+
+    private static final Logger logger = LoggerFactory.getLogger(InFlightRequests.class);
+
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> coalescedCounters = new ConcurrentHashMap<>();
+
+    public byte[] execute(String serviceName, String fingerprint, Supplier<byte[]> upstreamCall) {
+        CompletableFuture<byte[]> call = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(fingerprint, call);
+        if (existing != null) {
+            coalescedCounters.computeIfAbsent(serviceName, name -> Counter.builder("soap.proxy.coalesced")
+                            .description("Requests served by an identical in-flight upstream call")
+                            .tag("service", name)
+                            .register(meterRegistry))
+                    .increment();
+            logger.debug("Coalesced request for service {} onto in-flight call", serviceName);
+            return await(existing);
+        }
+
+        try {
+            byte[] response = upstreamCall.get();
+            call.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too, or the followers would wait on this call forever
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fingerprint, call);
+        }
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    // Followers see the leader's failure as-is
+    private static byte[] await(CompletableFuture<byte[]> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.soapclient.cache;
+
+import org.apache.xml.security.c14n.Canonicalizer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+// Identifies a logical request: SHA-256 over (service, SOAPAction, canonicalized operation
+// body). Shared by the response cache and in-flight request coalescing.
+public final class RequestFingerprint {
+
+    static {
+        // Canonicalizer needs the xmlsec library initialised (idempotent)
+        org.apache.xml.security.Init.init();
+    }
+
+    private RequestFingerprint() {
+    }
+
+    public static String of(String serviceName, String soapAction, byte[] operationBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(serviceName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (soapAction != null) {
+                digest.update(soapAction.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(canonicalize(operationBody));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Exclusive C14N so attribute order, quoting and namespace declaration placement
+    // don't produce different fingerprints for the same request
+    private static byte[] canonicalize(byte[] operationBody) {
+        try {
+            Canonicalizer canonicalizer = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+            ByteArrayOutputStream canonical = new ByteArrayOutputStream(operationBody.length);
+            canonicalizer.canonicalize(operationBody, canonical, true);
+            return canonical.toByteArray();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Could not canonicalize operation body", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.soapclient.cache;
+
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.config.ServicesReloadedEvent;
+import com.example.soapclient.config.SoapServiceConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Opt-in response cache for idempotent operations. Each service with cacheTtlSeconds set
+// gets its own size-bounded Caffeine (W-TinyLFU) cache holding serialized response bytes,
+// keyed by the request's RequestFingerprint. Hits, misses, evictions and size are
+// published as the cache.* metrics tagged cache=soap.response and service=<name>.
+@Component
+public class ResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final String CACHE_NAME = "soap.response";
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.response-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Cache<String, byte[]>> caches = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Added and reconfigured services start with an empty cache, since a new URL, action
+    // or TTL can make the old entries wrong; unchanged services keep theirs
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        for (String serviceName : event.getChangedServices()) {
+            register(serviceName, event.getServiceConfigs().get(serviceName));
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            caches.remove(serviceName);
+            removeMetrics(serviceName);
+        }
+    }
+
+    public boolean isEnabled(String serviceName) {
+        return caches.containsKey(serviceName);
+    }
+
+    public byte[] get(String serviceName, String key) {
+        Cache<String, byte[]> cache = caches.get(serviceName);
+        return cache != null ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String serviceName, String key, byte[] response) {
+        Cache<String, byte[]> cache = caches.get(serviceName);
+        if (cache != null) {
+            cache.put(key, response);
+        }
+    }
+
+    public long size(String serviceName) {
+        Cache<String, byte[]> cache = caches.get(serviceName);
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        removeMetrics(serviceName);
+        if (serviceConfig.getCacheTtlSeconds() == null || serviceConfig.getCacheTtlSeconds() <= 0) {
+            caches.remove(serviceName);
+            return;
+        }
+        long capacity = serviceConfig.getCacheMaxBytes() != null ? serviceConfig.getCacheMaxBytes() : maxBytes;
+        Cache<String, byte[]> cache = Caffeine.newBuilder()
+                .maximumWeight(capacity)
+                // Weigh entries by their payload so the bound is on heap, not entry count
+                .weigher((String key, byte[] value) -> key.length() + value.length)
+                .expireAfterWrite(Duration.ofSeconds(serviceConfig.getCacheTtlSeconds()))
+                .recordStats()
+                .build();
+        caches.put(serviceName, cache);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "service", serviceName);
+        logger.info("Enabled response cache for service {} (ttl={}s, maxBytes={})",
+                serviceName, serviceConfig.getCacheTtlSeconds(), capacity);
+    }
+
+    // The cache meters read from the cache they were bound to, so a replaced cache's
+    // meters have to go before the new one is monitored
+    private void removeMetrics(String serviceName) {
+        for (Meter meter : meterRegistry.getMeters()) {
+            Meter.Id id = meter.getId();
+            if (CACHE_NAME.equals(id.getTag("cache")) && serviceName.equals(id.getTag("service"))) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+}
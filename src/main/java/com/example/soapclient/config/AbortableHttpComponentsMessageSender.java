@@ -0,0 +1,29 @@
+package com.example.soapclient.config;
+
+import com.example.soapclient.resilience.RequestAbortHandle;
+import org.apache.http.client.HttpClient;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.http.HttpComponentsConnection;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+
+import java.io.IOException;
+import java.net.URI;
+
+// Registers each HttpPost with the calling thread's RequestAbortHandle, if any, so the
+// losing half of a hedged call can be aborted while it is blocked on the socket.
+public class AbortableHttpComponentsMessageSender extends HttpComponentsMessageSender {
+
+    public AbortableHttpComponentsMessageSender(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    public WebServiceConnection createConnection(URI uri) throws IOException {
+        WebServiceConnection connection = super.createConnection(uri);
+        RequestAbortHandle abortHandle = RequestAbortHandle.current();
+        if (abortHandle != null && connection instanceof HttpComponentsConnection) {
+            abortHandle.register(((HttpComponentsConnection) connection).getHttpPost());
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.soapclient.config;
+
+import com.example.soapclient.exception.ServiceBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// One bounded executor per configured SOAP service. A slow backend can only tie up
+// its own threads and queue; once both are full further calls for that service are
+// rejected immediately instead of waiting on (or starving) the servlet container.
+@Component
+public class BulkheadExecutorRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadExecutorRegistry.class);
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.bulkhead.threads:20}")
+    private int threads;
+
+    @Value("${soap.bulkhead.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${soap.bulkhead.keep-alive-ms:60000}")
+    private long keepAliveMs;
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Added and reconfigured services get a new executor; the replaced one finishes the
+    // tasks it has already accepted
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        for (String serviceName : event.getChangedServices()) {
+            SoapServiceConfig serviceConfig = event.getServiceConfigs().get(serviceName);
+            retire(executors.put(serviceName, createExecutor(serviceName, serviceConfig)));
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            retire(executors.remove(serviceName));
+        }
+    }
+
+    // Runs the task on the service's executor; throws ServiceBusyException right away
+    // when the service has no capacity left
+    public <T> CompletableFuture<T> submit(String serviceName, Supplier<T> task) {
+        ThreadPoolExecutor executor = getExecutor(serviceName);
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            if (!executor.isShutdown()) {
+                throw busy(serviceName, executor);
+            }
+        }
+        // A reload retired the executor between the lookup and the submit; its
+        // replacement takes the task
+        executor = getExecutor(serviceName);
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw busy(serviceName, executor);
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor(String serviceName) {
+        ThreadPoolExecutor executor = executors.get(serviceName);
+        if (executor == null) {
+            throw new IllegalArgumentException("Unknown service: " + serviceName);
+        }
+        return executor;
+    }
+
+    private static ServiceBusyException busy(String serviceName, ThreadPoolExecutor executor) {
+        logger.warn("Bulkhead full for service {} (active={}, queued={})",
+                serviceName, executor.getActiveCount(), executor.getQueue().size());
+        return new ServiceBusyException(serviceName);
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        executors.put(serviceName, createExecutor(serviceName, serviceConfig));
+    }
+
+    private ThreadPoolExecutor createExecutor(String serviceName, SoapServiceConfig serviceConfig) {
+        int poolSize = serviceConfig.getBulkheadThreads() != null ? serviceConfig.getBulkheadThreads() : threads;
+        int capacity = serviceConfig.getBulkheadQueueCapacity() != null ?
+                serviceConfig.getBulkheadQueueCapacity() : queueCapacity;
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                keepAliveMs, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacity)),
+                threadFactory(serviceName),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Let idle services give their threads back
+        executor.allowCoreThreadTimeOut(true);
+
+        logger.info("Registered bulkhead for service {} (threads={}, queueCapacity={})",
+                serviceName, poolSize, capacity);
+        return executor;
+    }
+
+    private static void retire(ThreadPoolExecutor executor) {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String serviceName) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-" + serviceName + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+        executors.clear();
+    }
+}
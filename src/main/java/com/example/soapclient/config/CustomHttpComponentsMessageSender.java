@@ -5,34 +5,27 @@ import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.protocol.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ws.transport.WebServiceConnection;
 import org.springframework.ws.transport.http.HttpComponentsConnection;
-import org.springframework.ws.transport.http.HttpComponentsMessageSender;
 
 import java.io.IOException;
 import java.net.URI;
 
 // This custom message sender extends HttpComponentsMessageSender
 // and attempts to remove the Content-Length header and set Content-Type.
-public class CustomHttpComponentsMessageSender extends HttpComponentsMessageSender {
+// The HttpClient passed in is used as-is; it is expected to have a
+// HeaderCleanupInterceptor installed first (see HttpClientFactory).
+public class CustomHttpComponentsMessageSender extends AbortableHttpComponentsMessageSender {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomHttpComponentsMessageSender.class);
-    private static final String CONTENT_TYPE_SOAP = "text/xml;charset=UTF-8";
+    static final String CONTENT_TYPE_SOAP = "text/xml;charset=UTF-8";
 
     public CustomHttpComponentsMessageSender(HttpClient httpClient) {
         super(httpClient);
-        // Create a new HttpClient with our interceptor
-        HttpClientBuilder builder = HttpClientBuilder.create();
-        builder.addInterceptorFirst(new HeaderCleanupInterceptor());
-        // If the provided client is a CloseableHttpClient, copy its configuration
-        if (httpClient instanceof org.apache.http.impl.client.CloseableHttpClient) {
-            setHttpClient(builder.build());
-        }
     }
 
     @Override
@@ -57,7 +50,7 @@ public class CustomHttpComponentsMessageSender extends HttpComponentsMessageSend
         return connection;
     }
 
-    private static class HeaderCleanupInterceptor implements HttpRequestInterceptor {
+    static class HeaderCleanupInterceptor implements HttpRequestInterceptor {
         @Override
         public void process(HttpRequest request, HttpContext context) throws IOException {
             // Log headers before cleanup
@@ -0,0 +1,206 @@
+package com.example.soapclient.config;
+
+import com.example.soapclient.metrics.ProxyMetrics;
+import org.apache.http.HttpHost;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Builds the long-lived, pooled HttpClient (and the message sender wrapping it) that
+// each service's RequestPlan holds, so requests reuse warm connections instead of
+// building a new client on every call. A client whose plan is replaced or removed on
+// a config reload is closed once its in-flight calls have had time to finish.
+@Component
+public class HttpClientFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientFactory.class);
+
+    @Value("${soap.http.max-total:200}")
+    private int maxTotal;
+
+    @Value("${soap.http.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${soap.http.connect-timeout-ms:60000}")
+    private int connectTimeoutMs;
+
+    @Value("${soap.http.read-timeout-ms:60000}")
+    private int readTimeoutMs;
+
+    @Value("${soap.http.connection-request-timeout-ms:5000}")
+    private int connectionRequestTimeoutMs;
+
+    @Value("${soap.http.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${soap.http.idle-evict-ms:60000}")
+    private long idleEvictMs;
+
+    @Value("${soap.compression.accept-gzip:true}")
+    private boolean acceptGzip;
+
+    @Value("${soap.compression.request-min-bytes:2048}")
+    private long gzipRequestMinBytes;
+
+    @Autowired
+    private ProxyMetrics proxyMetrics;
+
+    private final Set<CloseableHttpClient> retiring = ConcurrentHashMap.newKeySet();
+
+    private final Map<HttpClient, TimedConnectionManager> connectionManagers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService retirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-client-retirer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HttpComponentsMessageSender create(String serviceName, SoapServiceConfig serviceConfig) {
+        TimedConnectionManager connectionManager = new TimedConnectionManager(serviceName, proxyMetrics);
+        connectionManager.setMaxTotal(serviceConfig.getMaxConnections() != null ?
+                serviceConfig.getMaxConnections() : maxTotal);
+        connectionManager.setDefaultMaxPerRoute(serviceConfig.getMaxConnectionsPerRoute() != null ?
+                serviceConfig.getMaxConnectionsPerRoute() : maxPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictMs, TimeUnit.MILLISECONDS);
+
+        // The client sends Accept-Encoding: gzip,deflate and decompresses the response
+        // stream as it is read; without it responses come back uncompressed
+        boolean gzipResponses = serviceConfig.getAcceptGzip() != null ? serviceConfig.getAcceptGzip() : acceptGzip;
+        if (!gzipResponses) {
+            builder.disableContentCompression();
+        }
+        if (serviceConfig.isGzipRequests()) {
+            builder.addInterceptorFirst(new GzipRequestInterceptor(gzipRequestMinBytes));
+        }
+
+        boolean useProxy = serviceConfig.isProxyEnabled()
+                && serviceConfig.getProxyHost() != null
+                && serviceConfig.getProxyPort() > 0;
+
+        CloseableHttpClient httpClient;
+        HttpComponentsMessageSender messageSender;
+        if (useProxy) {
+            logger.info("Using proxy {}:{} for service {}",
+                    serviceConfig.getProxyHost(), serviceConfig.getProxyPort(), serviceName);
+            builder.setProxy(new HttpHost(serviceConfig.getProxyHost(), serviceConfig.getProxyPort()));
+            // The custom sender relies on this interceptor to fix up the outgoing headers
+            builder.addInterceptorFirst(new CustomHttpComponentsMessageSender.HeaderCleanupInterceptor());
+            httpClient = builder.build();
+            messageSender = new CustomHttpComponentsMessageSender(httpClient);
+        } else {
+            // Same interceptor the default HttpComponentsMessageSender installs on its own client
+            builder.addInterceptorFirst(new HttpComponentsMessageSender.RemoveSoapHeadersInterceptor());
+            httpClient = builder.build();
+            messageSender = new AbortableHttpComponentsMessageSender(httpClient);
+        }
+        // Accept-Encoding is the client's job (see above), so the sender must not add its own
+        messageSender.setAcceptGzipEncoding(false);
+        connectionManagers.put(httpClient, connectionManager);
+
+        logger.info("Created pooled HTTP client for service {} (maxTotal={}, maxPerRoute={}, acceptGzip={}, gzipRequests={})",
+                serviceName, connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute(),
+                gzipResponses, serviceConfig.isGzipRequests());
+        return messageSender;
+    }
+
+    // Opens connections to the service's endpoint (or its proxy) ahead of the first
+    // request; returns how many were opened
+    public int preconnect(String serviceName, SoapServiceConfig serviceConfig, HttpComponentsMessageSender messageSender,
+                          int connections, int connectTimeoutMs) throws IOException, InterruptedException {
+        TimedConnectionManager connectionManager = connectionManagers.get(messageSender.getHttpClient());
+        if (connectionManager == null) {
+            return 0;
+        }
+        return connectionManager.preconnect(route(serviceConfig), connections, connectTimeoutMs,
+                connectionRequestTimeoutMs, keepAliveMs);
+    }
+
+    // The route HttpClient's default route planner would pick for the service URL
+    private static HttpRoute route(SoapServiceConfig serviceConfig) {
+        URI uri = URI.create(serviceConfig.getUrl());
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+        HttpHost target = new HttpHost(uri.getHost(), port, uri.getScheme());
+        boolean useProxy = serviceConfig.isProxyEnabled()
+                && serviceConfig.getProxyHost() != null
+                && serviceConfig.getProxyPort() > 0;
+        if (useProxy) {
+            return new HttpRoute(target, null, new HttpHost(serviceConfig.getProxyHost(), serviceConfig.getProxyPort()), secure);
+        }
+        return new HttpRoute(target, null, secure);
+    }
+
+    // Requests already holding the old client may still be waiting on it, so it is
+    // closed only after the longest a call can take
+    public void retire(String serviceName, HttpComponentsMessageSender messageSender) {
+        CloseableHttpClient httpClient = (CloseableHttpClient) messageSender.getHttpClient();
+        retiring.add(httpClient);
+        long delayMs = (long) connectionRequestTimeoutMs + connectTimeoutMs + readTimeoutMs;
+        retirer.schedule(() -> {
+            retiring.remove(httpClient);
+            close(serviceName, httpClient);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void close(String serviceName, HttpComponentsMessageSender messageSender) {
+        close(serviceName, (CloseableHttpClient) messageSender.getHttpClient());
+    }
+
+    private void close(String serviceName, CloseableHttpClient httpClient) {
+        connectionManagers.remove(httpClient);
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close HTTP client for service {}", serviceName, e);
+        }
+    }
+
+    // Honour the server's Keep-Alive header, otherwise keep connections for keepAliveMs
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? serverKeepAlive : keepAliveMs;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retirer.shutdownNow();
+        for (CloseableHttpClient httpClient : retiring) {
+            close("(retired)", httpClient);
+        }
+        retiring.clear();
+    }
+}
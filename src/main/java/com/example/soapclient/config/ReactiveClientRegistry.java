@@ -0,0 +1,165 @@
+package com.example.soapclient.config;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.ProxyProvider;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reactive counterpart of HttpClientFactory: one non-blocking WebClient (Reactor Netty,
+// event-loop I/O) per configured SOAP service, used when soap.proxy.mode=reactive.
+@Component
+@ConditionalOnProperty(name = "soap.proxy.mode", havingValue = "reactive")
+public class ReactiveClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveClientRegistry.class);
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.reactive.max-connections:500}")
+    private int maxConnections;
+
+    @Value("${soap.reactive.max-pending-acquires:5000}")
+    private int maxPendingAcquires;
+
+    @Value("${soap.reactive.max-response-bytes:16777216}")
+    private int maxResponseBytes;
+
+    @Value("${soap.http.connect-timeout-ms:60000}")
+    private int connectTimeoutMs;
+
+    @Value("${soap.http.read-timeout-ms:60000}")
+    private int readTimeoutMs;
+
+    @Value("${soap.http.connection-request-timeout-ms:5000}")
+    private int connectionRequestTimeoutMs;
+
+    @Value("${soap.http.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${soap.http.idle-evict-ms:60000}")
+    private long idleEvictMs;
+
+    @Value("${soap.compression.accept-gzip:true}")
+    private boolean acceptGzip;
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    private final Map<String, WebClient> webClients = new ConcurrentHashMap<>();
+
+    private final Map<String, ConnectionProvider> connectionProviders = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Added and reconfigured services (new URL, proxy, limits) get a new client, so this
+    // path calls the same endpoint as the servlet one; removed services lose theirs
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        for (String serviceName : event.getChangedServices()) {
+            ConnectionProvider previous = connectionProviders.get(serviceName);
+            register(serviceName, event.getServiceConfigs().get(serviceName));
+            retire(previous);
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            webClients.remove(serviceName);
+            retire(connectionProviders.remove(serviceName));
+        }
+    }
+
+    public WebClient getWebClient(String serviceName) {
+        WebClient webClient = webClients.get(serviceName);
+        if (webClient == null) {
+            throw new IllegalArgumentException("Unknown service: " + serviceName);
+        }
+        return webClient;
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("soap-" + serviceName)
+                .maxConnections(serviceConfig.getMaxConnections() != null ?
+                        serviceConfig.getMaxConnections() : maxConnections)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(keepAliveMs))
+                .evictInBackground(Duration.ofMillis(idleEvictMs))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs))
+                // Accept-Encoding: gzip, with the response decompressed on the event loop
+                .compress(serviceConfig.getAcceptGzip() != null ? serviceConfig.getAcceptGzip() : acceptGzip);
+
+        WebClient.Builder builder = webClientBuilder.clone()
+                .baseUrl(serviceConfig.getUrl())
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseBytes));
+
+        boolean useProxy = serviceConfig.isProxyEnabled()
+                && serviceConfig.getProxyHost() != null
+                && serviceConfig.getProxyPort() > 0;
+        if (useProxy) {
+            logger.info("Using proxy {}:{} for reactive service {}",
+                    serviceConfig.getProxyHost(), serviceConfig.getProxyPort(), serviceName);
+            httpClient = httpClient.proxy(proxy -> proxy.type(ProxyProvider.Proxy.HTTP)
+                    .host(serviceConfig.getProxyHost())
+                    .port(serviceConfig.getProxyPort()));
+            // Same Content-Type the servlet path forces for proxied services
+            builder.filter(ExchangeFilterFunction.ofRequestProcessor(request -> Mono.just(
+                    ClientRequest.from(request)
+                            .headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE,
+                                    CustomHttpComponentsMessageSender.CONTENT_TYPE_SOAP))
+                            .build())));
+        }
+
+        webClients.put(serviceName, builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build());
+        connectionProviders.put(serviceName, connectionProvider);
+        logger.info("Registered reactive HTTP client for service {} (maxConnections={})",
+                serviceName, connectionProvider.maxConnections());
+    }
+
+    // Like HttpClientFactory.retire: requests already on the old pool get the longest
+    // time a request can take before its connections are closed
+    private void retire(ConnectionProvider connectionProvider) {
+        if (connectionProvider == null) {
+            return;
+        }
+        Duration delay = Duration.ofMillis((long) connectionRequestTimeoutMs + connectTimeoutMs + readTimeoutMs);
+        Mono.delay(delay).then(connectionProvider.disposeLater()).subscribe(null,
+                error -> logger.warn("Failed to dispose connection provider {}", connectionProvider.name(), error));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ConnectionProvider connectionProvider : connectionProviders.values()) {
+            connectionProvider.dispose();
+        }
+        connectionProviders.clear();
+        webClients.clear();
+    }
+}
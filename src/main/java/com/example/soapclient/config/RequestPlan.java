@@ -0,0 +1,70 @@
+package com.example.soapclient.config;
+
+import com.example.soapclient.xml.OperationPayloadExtractor;
+import lombok.Getter;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+
+import javax.xml.namespace.QName;
+
+// Everything needed to send a request to one service, resolved once when the service
+// configuration is loaded: defaults applied, the operation QName and payload extractor
+// built, the namespace declarations and security header identity fixed, and the
+// pooled template and HTTP client attached. Plans are immutable; a config change produces a new plan.
+@Getter
+public class RequestPlan {
+
+    private static final String DEFAULT_START_TAG = "<Add>";
+    private static final String DEFAULT_END_TAG = "</Add>";
+    private static final String DEFAULT_REQUEST_NAMESPACE = "http://tempuri.org/";
+    private static final String DEFAULT_PREFIX = "soap";
+    private static final String DEFAULT_CORRELATION = "_CORR_";
+
+    private final String serviceName;
+    private final SoapServiceConfig config;
+    private final String url;
+    private final String soapAction;
+    private final QName operation;
+    private final OperationPayloadExtractor extractor;
+    private final String envelopePrefix;     // null: no envelope declaration
+    private final String envelopeNamespace;
+    private final String bodyPrefix;         // null: no body declaration
+    private final String bodyNamespace;
+    private final boolean headerRequired;
+    private final String headerUsername;
+    private final String headerCorrelation;
+    private final WebServiceTemplate webServiceTemplate;
+    private final HttpComponentsMessageSender messageSender;
+
+    RequestPlan(String serviceName, SoapServiceConfig config, String defaultUsername,
+                WebServiceTemplate webServiceTemplate, HttpComponentsMessageSender messageSender) {
+        this.serviceName = serviceName;
+        this.config = config;
+        this.url = config.getUrl();
+        this.soapAction = config.getSoapAction();
+
+        this.extractor = new OperationPayloadExtractor(
+                config.getStartTag() != null ? config.getStartTag() : DEFAULT_START_TAG,
+                config.getEndTag() != null ? config.getEndTag() : DEFAULT_END_TAG,
+                config.getRequestNamespace() != null ? config.getRequestNamespace() : DEFAULT_REQUEST_NAMESPACE);
+        this.operation = new QName(extractor.getRequestNamespace(), extractor.getOperationName());
+
+        this.envelopeNamespace = config.getEnvelopeNamespace();
+        this.envelopePrefix = envelopeNamespace == null ? null :
+                config.getEnvelopePrefix() != null ? config.getEnvelopePrefix() : DEFAULT_PREFIX;
+        this.bodyNamespace = config.getBodyNamespace();
+        this.bodyPrefix = bodyNamespace == null ? null :
+                config.getBodyPrefix() != null ? config.getBodyPrefix() : DEFAULT_PREFIX;
+
+        this.headerRequired = config.isHeaderRequired();
+        this.headerUsername = config.getUsername() != null ? config.getUsername() : defaultUsername;
+        this.headerCorrelation = config.getCorrelation() != null ? config.getCorrelation() : DEFAULT_CORRELATION;
+        this.webServiceTemplate = webServiceTemplate;
+        this.messageSender = messageSender;
+    }
+
+    // The configured SOAPAction unless the caller supplied one
+    public String effectiveSoapAction(String requestedSoapAction) {
+        return requestedSoapAction != null ? requestedSoapAction : soapAction;
+    }
+}
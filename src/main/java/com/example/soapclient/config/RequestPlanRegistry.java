@@ -0,0 +1,227 @@
+package com.example.soapclient.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Owns the service configuration. soap.services (or the JSON file named by
+// soap.services-file, when set) is parsed once and every service compiled into a
+// RequestPlan. The file is polled for changes; on a change the new configuration is
+// compiled next to the old one and swapped in as a whole, so requests always see one
+// consistent set of plans. Services whose configuration did not change keep their plan
+// and warm connection pool. Components holding per-service state (guards, caches,
+// bulkheads, ...) rebuild it for added and changed services on ServicesReloadedEvent.
+@Component
+public class RequestPlanRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestPlanRegistry.class);
+
+    @Value("${soap.services}")
+    private String servicesJson;
+
+    @Value("${soap.services-file:}")
+    private String servicesFile;
+
+    @Value("${soap.services-file.poll-ms:5000}")
+    private long pollMs;
+
+    @Value("${soap.service.username:test}")
+    private String username;
+
+    @Autowired
+    private HttpClientFactory httpClientFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private volatile Map<String, RequestPlan> plans = Collections.emptyMap();
+
+    private ScheduledExecutorService watcher;
+
+    private long lastModified;
+
+    private long lastLength;
+
+    @PostConstruct
+    public void init() {
+        try {
+            File file = getServicesFile();
+            if (file != null && file.isFile()) {
+                rememberVersion(file);
+                plans = compile(readConfigs(file));
+                logger.info("Loaded {} services from {}", plans.size(), file);
+            } else {
+                plans = compile(mapper.readValue(servicesJson, new TypeReference<Map<String, SoapServiceConfig>>() {}));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize service configuration", e);
+        }
+
+        if (getServicesFile() != null && pollMs > 0) {
+            watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "services-file-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfChanged, pollMs, pollMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+        for (RequestPlan plan : plans.values()) {
+            httpClientFactory.close(plan.getServiceName(), plan.getMessageSender());
+        }
+    }
+
+    public RequestPlan getPlan(String serviceName) {
+        RequestPlan plan = plans.get(serviceName);
+        if (plan == null) {
+            throw new IllegalArgumentException("Unknown service: " + serviceName);
+        }
+        return plan;
+    }
+
+    // The configuration the current plans were compiled from, for components that
+    // set up per-service state at startup
+    public Map<String, SoapServiceConfig> getServiceConfigs() {
+        Map<String, SoapServiceConfig> configs = new LinkedHashMap<>();
+        for (Map.Entry<String, RequestPlan> entry : plans.entrySet()) {
+            configs.put(entry.getKey(), entry.getValue().getConfig());
+        }
+        return Collections.unmodifiableMap(configs);
+    }
+
+    private void reloadIfChanged() {
+        File file = getServicesFile();
+        if (!file.isFile() || (file.lastModified() == lastModified && file.length() == lastLength)) {
+            return;
+        }
+        try {
+            rememberVersion(file);
+            Map<String, SoapServiceConfig> configs = readConfigs(file);
+            Map<String, SoapServiceConfig> previousConfigs = getServiceConfigs();
+            Map<String, RequestPlan> previous = plans;
+            plans = compile(configs);
+            // Replaced and removed plans stop taking requests now; their clients are closed later
+            for (RequestPlan plan : previous.values()) {
+                if (plans.get(plan.getServiceName()) != plan) {
+                    httpClientFactory.retire(plan.getServiceName(), plan.getMessageSender());
+                }
+            }
+            logger.info("Reloaded {} services from {}", configs.size(), file);
+            eventPublisher.publishEvent(new ServicesReloadedEvent(this, previousConfigs, getServiceConfigs()));
+        } catch (Exception e) {
+            // Keep serving with the plans we have; the next change to the file is retried
+            logger.error("Failed to reload services from {}, keeping the current configuration", file, e);
+        }
+    }
+
+    private Map<String, RequestPlan> compile(Map<String, SoapServiceConfig> configs) {
+        Map<String, RequestPlan> previous = plans;
+        Map<String, RequestPlan> compiled = new HashMap<>();
+        List<RequestPlan> created = new ArrayList<>();
+        try {
+            for (Map.Entry<String, SoapServiceConfig> entry : configs.entrySet()) {
+                String serviceName = entry.getKey();
+                RequestPlan current = previous.get(serviceName);
+                if (current != null && current.getConfig().equals(entry.getValue())) {
+                    compiled.put(serviceName, current);
+                } else {
+                    RequestPlan plan = createPlan(serviceName, entry.getValue());
+                    created.add(plan);
+                    compiled.put(serviceName, plan);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Nothing was swapped in, so the clients built so far are not in use
+            for (RequestPlan plan : created) {
+                httpClientFactory.close(plan.getServiceName(), plan.getMessageSender());
+            }
+            throw e;
+        }
+        return Collections.unmodifiableMap(compiled);
+    }
+
+    // Message factory, pooled sender and no interceptors, so WSS4J never adds its own
+    // headers; we add ours in the message callback
+    private RequestPlan createPlan(String serviceName, SoapServiceConfig serviceConfig) {
+        WebServiceMessageFactory messageFactory = createMessageFactory(serviceName, serviceConfig);
+
+        HttpComponentsMessageSender messageSender = httpClientFactory.create(serviceName, serviceConfig);
+        WebServiceTemplate template = new WebServiceTemplate(messageFactory);
+        template.setMessageSender(messageSender);
+        template.setInterceptors(new ClientInterceptor[]{});
+        try {
+            return new RequestPlan(serviceName, serviceConfig, username, template, messageSender);
+        } catch (RuntimeException e) {
+            httpClientFactory.close(serviceName, messageSender);
+            throw new IllegalArgumentException("Invalid configuration for service " + serviceName, e);
+        }
+    }
+
+    private static WebServiceMessageFactory createMessageFactory(String serviceName, SoapServiceConfig serviceConfig) {
+        String type = serviceConfig.getMessageFactory();
+        if (type == null || "saaj".equalsIgnoreCase(type)) {
+            SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+            messageFactory.afterPropertiesSet();
+            return messageFactory;
+        }
+        if ("axiom".equalsIgnoreCase(type)) {
+            // Without payload caching the response body is read straight off the connection
+            // while it is copied out, and requests are written through a StreamingPayload
+            AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+            messageFactory.setPayloadCaching(false);
+            try {
+                messageFactory.afterPropertiesSet();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to create AXIOM message factory for service " + serviceName, e);
+            }
+            return messageFactory;
+        }
+        throw new IllegalArgumentException("Unknown messageFactory '" + type + "' for service " + serviceName);
+    }
+
+    private Map<String, SoapServiceConfig> readConfigs(File file) throws IOException {
+        return mapper.readValue(file, new TypeReference<Map<String, SoapServiceConfig>>() {});
+    }
+
+    private void rememberVersion(File file) {
+        lastModified = file.lastModified();
+        lastLength = file.length();
+    }
+
+    private File getServicesFile() {
+        return servicesFile == null || servicesFile.isEmpty() ? null : new File(servicesFile);
+    }
+}
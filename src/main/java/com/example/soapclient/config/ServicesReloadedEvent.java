@@ -0,0 +1,46 @@
+package com.example.soapclient.config;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Published by RequestPlanRegistry after a new service configuration has been swapped in.
+// A service is "changed" when it was added or got a new plan; listeners rebuild their
+// per-service state for those, drop it for removed services and keep it for the rest.
+public class ServicesReloadedEvent extends ApplicationEvent {
+
+    private final Map<String, SoapServiceConfig> previousConfigs;
+
+    private final Map<String, SoapServiceConfig> serviceConfigs;
+
+    public ServicesReloadedEvent(Object source, Map<String, SoapServiceConfig> previousConfigs,
+                                 Map<String, SoapServiceConfig> serviceConfigs) {
+        super(source);
+        this.previousConfigs = previousConfigs;
+        this.serviceConfigs = serviceConfigs;
+    }
+
+    public Map<String, SoapServiceConfig> getServiceConfigs() {
+        return serviceConfigs;
+    }
+
+    public Set<String> getChangedServices() {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            if (!Objects.equals(previousConfigs.get(entry.getKey()), entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+    public Set<String> getRemovedServices() {
+        Set<String> removed = new LinkedHashSet<>(previousConfigs.keySet());
+        removed.removeAll(serviceConfigs.keySet());
+        return Collections.unmodifiableSet(removed);
+    }
+}
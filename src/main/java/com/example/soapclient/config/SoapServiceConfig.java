@@ -2,6 +2,8 @@ package com.example.soapclient.config;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class SoapServiceConfig {
     private String url;
@@ -20,4 +22,26 @@ public class SoapServiceConfig {
     private boolean proxyEnabled;  // new flag: enable proxy
     private String proxyHost;     // proxy hostname for this service
     private int proxyPort; // proxy port for this service
+    private Integer maxConnections;          // pool size override (soap.http.max-total otherwise)
+    private Integer maxConnectionsPerRoute;  // per-route override (soap.http.max-per-route otherwise)
+    private Integer warmupConnections;       // connections opened at startup (soap.warmup.connections otherwise)
+    private boolean streamResponse;  // copy the response payload straight to the client instead of buffering it
+    private String messageFactory;   // "axiom" streams envelopes through StAX instead of building a SAAJ DOM ("saaj" otherwise)
+    private Boolean acceptGzip;      // ask for gzip/deflate responses (soap.compression.accept-gzip otherwise)
+    private boolean gzipRequests;    // gzip request bodies of soap.compression.request-min-bytes or more; the backend must accept it
+    private Integer bulkheadThreads;        // async worker threads override (soap.bulkhead.threads otherwise)
+    private Integer bulkheadQueueCapacity;  // async queue override (soap.bulkhead.queue-capacity otherwise)
+    private Integer cacheTtlSeconds;  // cache responses for this long; only for idempotent operations (off when unset)
+    private Long cacheMaxBytes;       // cache size override (soap.response-cache.max-bytes otherwise)
+    private boolean coalesceRequests;  // share one upstream call between identical concurrent requests
+    private Double auditSampleRate;     // fraction of requests written to the payload audit log (soap.audit.sample-rate otherwise)
+    private Long auditSlowThresholdMs;  // always audit requests slower than this (soap.audit.slow-threshold-ms otherwise)
+    private Long slowCallThresholdMs;  // calls slower than this trip the breaker and shrink the limit (soap.resilience.slow-call-threshold-ms otherwise)
+    private Integer maxConcurrency;    // ceiling for the adaptive concurrency limit (soap.resilience.limit.max otherwise)
+    private boolean idempotent;           // safe to send more than once; enables hedged requests
+    private Long hedgeDelayMs;            // send a hedge after this long (observed p95 otherwise)
+    private Integer hedgeBudgetPercent;   // hedges as a share of traffic (soap.hedge.budget-percent otherwise)
+    private Integer retryMaxAttempts;           // attempts including the first (soap.retry.max-attempts otherwise)
+    private List<String> retryableFaultCodes;   // SOAP fault codes worth retrying, e.g. "Server"
+    private List<String> retryableExceptions;   // extra exception class names worth retrying
 } 
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.soapclient.config;
+
+import com.example.soapclient.metrics.ProxyMetrics;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Pooling connection manager that reports how long each connection lease waited,
+// so pool exhaustion shows up as the "lease" stage of the service's metrics. It can also
+// open connections ahead of the first request (see StartupWarmup).
+class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final String serviceName;
+
+    private final ProxyMetrics proxyMetrics;
+
+    TimedConnectionManager(String serviceName, ProxyMetrics proxyMetrics) {
+        this.serviceName = serviceName;
+        this.proxyMetrics = proxyMetrics;
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, unit);
+                } finally {
+                    proxyMetrics.record(serviceName, "lease", System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    // Opens up to count connections on the route and returns them to the pool idle,
+    // so the first requests find them connected (TCP and, for https, TLS handshake done).
+    // All are leased before any is released, otherwise the pool would hand back the
+    // same one each time. Tunnelled routes need a CONNECT exchange and are left alone.
+    int preconnect(HttpRoute route, int count, int connectTimeoutMs, long leaseTimeoutMs, long keepAliveMs)
+            throws IOException, InterruptedException {
+        if (route.isTunnelled()) {
+            return 0;
+        }
+        List<HttpClientConnection> connections = new ArrayList<>(count);
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                HttpClientConnection connection;
+                try {
+                    connection = super.requestConnection(route, null).get(leaseTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to lease a connection for " + route, e.getCause());
+                }
+                connections.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connect(connection, route, connectTimeoutMs, context);
+                    routeComplete(connection, route, context);
+                    // Binds the socket streams, which otherwise only happens on the first
+                    // request; the stale check run on idle connections needs them bound
+                    connection.flush();
+                    opened++;
+                }
+            }
+        } finally {
+            for (HttpClientConnection connection : connections) {
+                releaseConnection(connection, null, keepAliveMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.soapclient.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import com.example.soapclient.config.BulkheadExecutorRegistry;
+import com.example.soapclient.metrics.ProxyMetrics;
+import com.example.soapclient.service.SoapProxyService;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Non-blocking variant: the upstream call runs on the service's bulkhead executor and the
+// Tomcat worker is released straight away. A saturated service answers 503 immediately.
+// The call is only handed to the bulkhead once Spring MVC has started async processing,
+// so the worker never touches the request or response while the container thread still
+// owns them.
+@CrossOrigin
+@RestController
+@ConditionalOnProperty(name = "soap.proxy.mode", havingValue = "async")
+@RequestMapping("/api/soap")
+public class AsyncSoapProxyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncSoapProxyController.class);
+
+    private static final String STREAMING_CONTENT_TYPE = "application/xml;charset=UTF-8";
+
+    @Autowired
+    private SoapProxyService soapProxyService;
+
+    @Autowired
+    private BulkheadExecutorRegistry bulkheadExecutorRegistry;
+
+    @Autowired
+    private ProxyMetrics proxyMetrics;
+
+    @PostMapping(value = "/{serviceName}",
+                consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
+                produces = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public DeferredResult<ResponseEntity<String>> proxyRequest(
+            @PathVariable String serviceName,
+            InputStream xmlPayload,
+            @RequestHeader(value = "SOAPAction", required = false) String soapAction,
+            @RequestHeader Map<String, String> headers,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+
+        logger.debug("Received async request for service: {}", serviceName);
+        logger.debug("SOAPAction: {}", soapAction);
+
+        if (soapProxyService.isStreamingResponse(serviceName)) {
+            return submitOnceAsync(request, serviceName, () -> {
+                // Write the upstream payload straight to the client; a null entity marks the response handled
+                try {
+                    response.setContentType(STREAMING_CONTENT_TYPE);
+                    soapProxyService.processSoapRequest(serviceName, xmlPayload, soapAction, headers,
+                            response.getOutputStream());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        }
+        return submitOnceAsync(request, serviceName, () -> proxyMetrics.timedResponse(() ->
+                soapProxyService.processSoapRequest(serviceName, xmlPayload, soapAction, headers)));
+    }
+
+    // preProcess runs right after startAsync. A full bulkhead throws from there, which
+    // Spring turns into the async result, so it still answers 503 before anything is written.
+    private <T> DeferredResult<T> submitOnceAsync(HttpServletRequest request, String serviceName, Supplier<T> task) {
+        DeferredResult<T> result = new DeferredResult<>();
+        WebAsyncUtils.getAsyncManager(request).registerDeferredResultInterceptor(result,
+                new DeferredResultProcessingInterceptor() {
+                    @Override
+                    public <R> void preProcess(NativeWebRequest webRequest, DeferredResult<R> deferredResult) {
+                        bulkheadExecutorRegistry.submit(serviceName, task).whenComplete((value, error) -> {
+                            if (error != null) {
+                                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ?
+                                        error.getCause() : error);
+                            } else {
+                                result.setResult(value);
+                            }
+                        });
+                    }
+                });
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.soapclient.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import com.example.soapclient.model.BatchRequest;
+import com.example.soapclient.model.BatchResponse;
+import com.example.soapclient.service.BatchSoapService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/soap")
+public class BatchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchController.class);
+
+    @Value("${soap.batch.max-items:200}")
+    private int maxItems;
+
+    @Autowired
+    private BatchSoapService batchSoapService;
+
+    @PostMapping(value = "/batch",
+                consumes = MediaType.APPLICATION_JSON_VALUE,
+                produces = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResponse processBatch(@RequestBody BatchRequest request) {
+        if (request.getItems() != null && request.getItems().size() > maxItems) {
+            logger.warn("Rejected batch of {} items (max {})", request.getItems().size(), maxItems);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch exceeds " + maxItems + " items");
+        }
+        return batchSoapService.processBatch(request);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.soapclient.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import com.example.soapclient.service.ReactiveSoapProxyService;
+import java.io.InputStream;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+// Non-blocking variant: the upstream exchange runs on the WebClient event loop and the
+// servlet thread is released as soon as the envelope has been built.
+@CrossOrigin
+@RestController
+@ConditionalOnProperty(name = "soap.proxy.mode", havingValue = "reactive")
+@RequestMapping("/api/soap")
+public class ReactiveSoapProxyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSoapProxyController.class);
+
+    @Autowired
+    private ReactiveSoapProxyService reactiveSoapProxyService;
+
+    @PostMapping(value = "/{serviceName}",
+                consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
+                produces = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public Mono<ResponseEntity<String>> proxyRequest(
+            @PathVariable String serviceName,
+            InputStream xmlPayload,
+            @RequestHeader(value = "SOAPAction", required = false) String soapAction,
+            @RequestHeader Map<String, String> headers) {
+
+        logger.debug("Received reactive request for service: {}", serviceName);
+        logger.debug("SOAPAction: {}", soapAction);
+
+        return reactiveSoapProxyService.processSoapRequest(serviceName, xmlPayload, soapAction)
+                .map(ResponseEntity::ok);
+    }
+}
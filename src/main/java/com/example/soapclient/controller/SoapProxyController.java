@@ -1,36 +1,57 @@
 package com.example.soapclient.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.example.soapclient.metrics.ProxyMetrics;
 import com.example.soapclient.service.SoapProxyService;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+// Blocking variant: the Tomcat worker waits for the upstream round-trip.
+// Set soap.proxy.mode=async to use AsyncSoapProxyController instead.
 @CrossOrigin
 @RestController
+@ConditionalOnProperty(name = "soap.proxy.mode", havingValue = "sync", matchIfMissing = true)
 @RequestMapping("/api/soap")
 public class SoapProxyController {
     
     private static final Logger logger = LoggerFactory.getLogger(SoapProxyController.class);
+
+    private static final String STREAMING_CONTENT_TYPE = "application/xml;charset=UTF-8";
     
     @Autowired
     private SoapProxyService soapProxyService;
 
+    @Autowired
+    private ProxyMetrics proxyMetrics;
+
     @PostMapping(value = "/{serviceName}", 
                 consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
                 produces = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
-    public String proxyRequest(
+    public ResponseEntity<String> proxyRequest(
             @PathVariable String serviceName,
-            @RequestBody String xmlPayload,
+            InputStream xmlPayload,
             @RequestHeader(value = "SOAPAction", required = false) String soapAction,
-            @RequestHeader Map<String, String> headers) {
+            @RequestHeader Map<String, String> headers,
+            HttpServletResponse response) throws IOException {
         
-        logger.info("Received request for service: {}", serviceName);
-        logger.debug("XML Payload: {}", xmlPayload);
+        logger.debug("Received request for service: {}", serviceName);
         logger.debug("SOAPAction: {}", soapAction);
         
-        return soapProxyService.processSoapRequest(serviceName, xmlPayload, soapAction, headers);
+        if (soapProxyService.isStreamingResponse(serviceName)) {
+            // Write the upstream payload straight to the client; returning null marks the response handled
+            response.setContentType(STREAMING_CONTENT_TYPE);
+            soapProxyService.processSoapRequest(serviceName, xmlPayload, soapAction, headers, response.getOutputStream());
+            return null;
+        }
+        return proxyMetrics.timedResponse(() ->
+                soapProxyService.processSoapRequest(serviceName, xmlPayload, soapAction, headers));
     }
 } 
\ No newline at end of file
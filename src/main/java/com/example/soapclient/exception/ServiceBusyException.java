@@ -0,0 +1,19 @@
+package com.example.soapclient.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Raised when a service's bulkhead has no free worker or queue slot, or its circuit
+// breaker or concurrency limit sheds the call; mapped to 503 so callers back off
+// instead of piling more work onto a slow backend.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String serviceName) {
+        super("Service " + serviceName + " is saturated, try again later");
+    }
+
+    public ServiceBusyException(String serviceName, String reason) {
+        super("Service " + serviceName + " is unavailable (" + reason + "), try again later");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.soapclient.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Per-stage latency of the proxy pipeline, published as the "soap.proxy.stage" timer
+// tagged by service and stage:
+//   extract  - locating the operation element in the incoming payload
+//   build    - writing the payload and envelope settings into the request (includes sign)
+//   sign     - obtaining and writing the security header
+//   lease    - waiting for a pooled upstream connection
+//   upstream - sending the request and reading the response (includes lease)
+//   copy     - serializing the response payload for the caller
+// Callers that want the numbers for a single request (Server-Timing) bracket it with
+// begin()/end(); stages are collected on the current thread, so this only covers the
+// servlet paths where the whole call runs on one thread.
+@Component
+public class ProxyMetrics {
+
+    public static final String STAGE_TIMER = "soap.proxy.stage";
+
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    @Value("${soap.metrics.server-timing:false}")
+    private boolean serverTimingEnabled;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public void record(String serviceName, String stage, long nanos) {
+        timers.computeIfAbsent(serviceName + '|' + stage, key -> Timer.builder(STAGE_TIMER)
+                        .description("Time spent in each stage of the SOAP proxy pipeline")
+                        .tag("service", serviceName)
+                        .tag("stage", stage)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(stage, nanos);
+        }
+    }
+
+    // Wraps a buffered proxy call in a 200 response, with a Server-Timing header listing
+    // the stages when soap.metrics.server-timing is on
+    public ResponseEntity<String> timedResponse(Supplier<String> call) {
+        if (!serverTimingEnabled) {
+            return ResponseEntity.ok(call.get());
+        }
+        RequestTimings timings = begin();
+        try {
+            String body = call.get();
+            return ResponseEntity.ok().header(SERVER_TIMING_HEADER, timings.toServerTiming()).body(body);
+        } finally {
+            end();
+        }
+    }
+
+    public RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public RequestTimings end() {
+        RequestTimings timings = CURRENT.get();
+        CURRENT.remove();
+        return timings;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.soapclient.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Stage durations collected for one proxied request, rendered as a Server-Timing header.
+public class RequestTimings {
+
+    private final long startNanos = System.nanoTime();
+
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+
+    void add(String stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    public Map<String, Long> getStageNanos() {
+        return stageNanos;
+    }
+
+    // e.g. "extract;dur=0.120, sign;dur=0.015, upstream;dur=38.400, total;dur=39.100"
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Long> entry : stageNanos.entrySet()) {
+            appendMetric(header, entry.getKey(), entry.getValue());
+        }
+        appendMetric(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=")
+                .append(String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.soapclient.model;
+
+import lombok.Data;
+
+@Data
+public class BatchItem {
+    private String serviceName;
+    private String payload;     // request XML, same as the body of /api/soap/{serviceName}
+    private String soapAction;  // optional, falls back to the service's configured action
+}
@@ -0,0 +1,13 @@
+package com.example.soapclient.model;
+
+import lombok.Data;
+
+@Data
+public class BatchItemResult {
+    private int index;         // position of the item in the request
+    private String serviceName;
+    private int status;        // HTTP status the single-call endpoint would have returned
+    private String response;   // response payload when status is 200
+    private String error;      // failure reason otherwise
+    private long durationMs;   // time spent calling the service, excluding queueing
+}
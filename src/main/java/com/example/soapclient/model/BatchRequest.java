@@ -0,0 +1,12 @@
+package com.example.soapclient.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchRequest {
+    private List<BatchItem> items = new ArrayList<>();
+    private Integer parallelism;  // optional, capped at soap.batch.max-parallelism
+}
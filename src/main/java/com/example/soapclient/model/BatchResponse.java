@@ -0,0 +1,11 @@
+package com.example.soapclient.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchResponse {
+    private List<BatchItemResult> results;  // same order as the request items
+    private long durationMs;
+}
@@ -0,0 +1,107 @@
+package com.example.soapclient.resilience;
+
+// Count-based circuit breaker. Outcomes of the last windowSize calls are kept in a ring;
+// once the share of bad ones (errors or slow calls) reaches the threshold the circuit
+// opens and calls are refused for openNanos. After that a few probe calls are let
+// through: if they all succeed the circuit closes again, any bad probe reopens it.
+class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final boolean[] window;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private int index;
+    private int count;
+    private int badCount;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    CircuitBreaker(int windowSize, int failureRateThreshold, long openNanos, int halfOpenProbes) {
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    // Returns the state the call was admitted in, or null if it must be refused
+    synchronized State tryAcquire(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openNanos) {
+                return null;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return null;
+            }
+            probesInFlight++;
+        }
+        return state;
+    }
+
+    synchronized void onResult(State admittedIn, boolean bad, long now) {
+        if (admittedIn == State.HALF_OPEN) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            probesInFlight--;
+            if (bad) {
+                open(now);
+            } else if (++probeSuccesses >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        // Calls admitted before the circuit opened don't count towards the probes
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (count == window.length) {
+            if (window[index]) {
+                badCount--;
+            }
+        } else {
+            count++;
+        }
+        window[index] = bad;
+        if (bad) {
+            badCount++;
+        }
+        index = (index + 1) % window.length;
+
+        if (count == window.length && badCount * 100 >= failureRateThreshold * count) {
+            open(now);
+        }
+    }
+
+    // A call that was admitted but abandoned without an outcome
+    synchronized void cancel(State admittedIn) {
+        if (admittedIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        index = 0;
+        count = 0;
+        badCount = 0;
+    }
+}
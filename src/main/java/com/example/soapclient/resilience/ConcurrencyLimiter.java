@@ -0,0 +1,52 @@
+package com.example.soapclient.resilience;
+
+// AIMD concurrency limit driven by upstream latency. The limit starts at its ceiling, so a
+// healthy backend is never throttled; calls beyond the current limit are refused, a slow
+// or failed call shrinks the limit multiplicatively, and a good call grows it back by one
+// while the limit is actually being used.
+class ConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+
+    ConcurrencyLimiter(int minLimit, int maxLimit, double backoffRatio) {
+        this.limit = Math.max(minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    synchronized void onResult(boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        inFlight--;
+    }
+
+    // Gives back a slot that was never used for a call
+    synchronized void cancel() {
+        inFlight--;
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
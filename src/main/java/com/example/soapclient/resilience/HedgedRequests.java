@@ -0,0 +1,239 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.config.ServicesReloadedEvent;
+import com.example.soapclient.config.SoapServiceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Hedged requests for services marked idempotent. The call runs on the caller's thread;
+// if it hasn't answered after the hedge delay (hedgeDelayMs, or the observed p95 once
+// enough calls have been seen) a second copy is sent from the hedge pool. The first
+// response wins and the other call's HttpPost is aborted. Hedges are paid for from a
+// per-service budget of soap.hedge.budget-percent of regular traffic.
+@Component
+public class HedgedRequests {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgedRequests.class);
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.hedge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${soap.hedge.budget-percent:5}")
+    private int budgetPercent;
+
+    @Value("${soap.hedge.percentile:0.95}")
+    private double percentile;
+
+    @Value("${soap.hedge.threads:16}")
+    private int threads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, HedgePolicy> policies = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    private ThreadPoolExecutor hedgeExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            if (entry.getValue().isIdempotent()) {
+                register(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Created even without idempotent services, which a reload may add; neither
+        // starts a thread before the first hedge
+        AtomicInteger threadCount = new AtomicInteger();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // No queue: a hedge that can't start right away is pointless, so it is skipped
+        hedgeExecutor = new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "hedge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    // Added and reconfigured services get a new policy (delay, budget, latency samples);
+    // unchanged ones keep theirs
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (String serviceName : event.getChangedServices()) {
+            SoapServiceConfig serviceConfig = event.getServiceConfigs().get(serviceName);
+            if (serviceConfig.isIdempotent()) {
+                register(serviceName, serviceConfig);
+            } else {
+                policies.remove(serviceName);
+            }
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            policies.remove(serviceName);
+        }
+    }
+
+    public boolean isEnabled(String serviceName) {
+        return policies.containsKey(serviceName);
+    }
+
+    public byte[] execute(String serviceName, Supplier<byte[]> call) {
+        HedgePolicy policy = policies.get(serviceName);
+        if (policy == null) {
+            return call.get();
+        }
+        policy.budget.deposit();
+        long delayNanos = policy.delayNanos();
+        if (delayNanos <= 0) {
+            // No configured delay and too few samples for a percentile yet
+            return timed(policy, call);
+        }
+
+        RequestAbortHandle primaryHandle = new RequestAbortHandle();
+        RequestAbortHandle hedgeHandle = new RequestAbortHandle();
+        CompletableFuture<byte[]> hedge = new CompletableFuture<>();
+        ScheduledFuture<?> hedgeTimer = timer.schedule(
+                () -> startHedge(policy, call, hedgeHandle, primaryHandle, hedge), delayNanos, TimeUnit.NANOSECONDS);
+        try {
+            return primaryHandle.run(() -> timed(policy, call));
+        } catch (RuntimeException e) {
+            // Timer cancelled before it fired: no hedge was sent
+            if (hedgeTimer.cancel(false)) {
+                throw e;
+            }
+            try {
+                return hedge.join();
+            } catch (CompletionException hedgeFailure) {
+                throw e;
+            }
+        } finally {
+            hedgeTimer.cancel(false);
+            hedgeHandle.abort();
+        }
+    }
+
+    private void startHedge(HedgePolicy policy, Supplier<byte[]> call, RequestAbortHandle hedgeHandle,
+                            RequestAbortHandle primaryHandle, CompletableFuture<byte[]> hedge) {
+        if (!policy.budget.tryWithdraw()) {
+            policy.budgetExhausted.increment();
+            hedge.completeExceptionally(new IllegalStateException("Hedge budget exhausted"));
+            return;
+        }
+        try {
+            hedgeExecutor.execute(() -> {
+                try {
+                    byte[] response = hedgeHandle.run(() -> timed(policy, call));
+                    if (hedge.complete(response)) {
+                        policy.won.increment();
+                        primaryHandle.abort();
+                    }
+                } catch (RuntimeException e) {
+                    hedge.completeExceptionally(e);
+                }
+            });
+            policy.sent.increment();
+        } catch (RejectedExecutionException e) {
+            policy.budgetExhausted.increment();
+            hedge.completeExceptionally(e);
+        }
+    }
+
+    private static byte[] timed(HedgePolicy policy, Supplier<byte[]> call) {
+        long start = System.nanoTime();
+        byte[] response = call.get();
+        policy.latency.record(System.nanoTime() - start);
+        return response;
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        int percent = serviceConfig.getHedgeBudgetPercent() != null ? serviceConfig.getHedgeBudgetPercent() : budgetPercent;
+        long fixedDelayNanos = serviceConfig.getHedgeDelayMs() != null ?
+                TimeUnit.MILLISECONDS.toNanos(serviceConfig.getHedgeDelayMs()) : 0;
+        policies.put(serviceName, new HedgePolicy(
+                fixedDelayNanos,
+                new RequestBudget(percent / 100.0, 10),
+                new LatencyTracker(512, percentile, 100),
+                hedgeCounter(serviceName, "sent"),
+                hedgeCounter(serviceName, "won"),
+                hedgeCounter(serviceName, "skipped")));
+        logger.info("Hedging requests for service {} (delay={}, budget={}%)", serviceName,
+                serviceConfig.getHedgeDelayMs() != null ? serviceConfig.getHedgeDelayMs() + "ms" : "p" + (int) (percentile * 100),
+                percent);
+    }
+
+    private Counter hedgeCounter(String serviceName, String result) {
+        return Counter.builder("soap.proxy.hedges")
+                .description("Hedged requests sent, won, and skipped for lack of budget or threads")
+                .tag("service", serviceName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class HedgePolicy {
+        final long fixedDelayNanos;
+        final RequestBudget budget;
+        final LatencyTracker latency;
+        final Counter sent;
+        final Counter won;
+        final Counter budgetExhausted;
+
+        HedgePolicy(long fixedDelayNanos, RequestBudget budget, LatencyTracker latency, Counter sent, Counter won,
+                    Counter budgetExhausted) {
+            this.fixedDelayNanos = fixedDelayNanos;
+            this.budget = budget;
+            this.latency = latency;
+            this.sent = sent;
+            this.won = won;
+            this.budgetExhausted = budgetExhausted;
+        }
+
+        long delayNanos() {
+            return fixedDelayNanos > 0 ? fixedDelayNanos : latency.get();
+        }
+    }
+}
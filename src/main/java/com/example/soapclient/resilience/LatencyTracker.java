@@ -0,0 +1,42 @@
+package com.example.soapclient.resilience;
+
+import java.util.Arrays;
+
+// Percentile of the most recent call latencies, kept in a fixed ring and re-computed
+// every few samples so reading it stays cheap. Returns 0 until enough samples exist.
+class LatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples;
+    private final double percentile;
+    private final int minSamples;
+    private int index;
+    private int count;
+    private int sinceRecompute;
+    private volatile long value;
+
+    LatencyTracker(int size, double percentile, int minSamples) {
+        this.samples = new long[size];
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+    }
+
+    synchronized void record(long nanos) {
+        samples[index] = nanos;
+        index = (index + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        if (++sinceRecompute >= RECOMPUTE_EVERY && count >= minSamples) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            value = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+        }
+    }
+
+    long get() {
+        return value;
+    }
+}
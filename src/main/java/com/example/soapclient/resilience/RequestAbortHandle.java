@@ -0,0 +1,52 @@
+package com.example.soapclient.resilience;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.function.Supplier;
+
+// Lets another thread cancel an upstream call that is blocked in HttpClient. The call
+// runs inside run(); AbortableHttpComponentsMessageSender registers the HttpPost it creates
+// with the current handle, and abort() aborts that request (or the next one registered).
+public class RequestAbortHandle {
+
+    private static final ThreadLocal<RequestAbortHandle> CURRENT = new ThreadLocal<>();
+
+    private HttpUriRequest request;
+    private boolean aborted;
+
+    public static RequestAbortHandle current() {
+        return CURRENT.get();
+    }
+
+    public <T> T run(Supplier<T> call) {
+        RequestAbortHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public synchronized void register(HttpUriRequest request) {
+        this.request = request;
+        if (aborted) {
+            request.abort();
+        }
+    }
+
+    public synchronized void abort() {
+        aborted = true;
+        if (request != null) {
+            request.abort();
+        }
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.soapclient.resilience;
+
+// Token bucket that caps extra requests (hedges, retries) at a fraction of regular
+// traffic: each regular request deposits ratio tokens, each extra request spends one.
+// maxTokens bounds how much unused budget can be saved up for a burst.
+class RequestBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    RequestBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    synchronized double getTokens() {
+        return tokens;
+    }
+}
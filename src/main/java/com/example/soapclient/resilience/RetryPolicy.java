@@ -0,0 +1,77 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.exception.ServiceBusyException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Decides whether a failed upstream call may be sent again. Failures where the request
+// never reached the backend (connection refused or timed out) and the configured HTTP
+// statuses are retryable for every service; idempotent services also retry other I/O
+// errors such as connection resets, except read timeouts. Configured SOAP fault codes
+// and exception class names are retryable on top of that.
+class RetryPolicy {
+
+    // WebServiceTemplate reports HTTP errors as "<reason> [<status>]"
+    private static final Pattern STATUS = Pattern.compile("\\[(\\d{3})]$");
+
+    final int maxAttempts;
+    private final boolean idempotent;
+    private final Set<Integer> retryableStatuses;
+    private final Set<String> retryableFaultCodes;
+    private final Set<String> retryableExceptions;
+
+    RetryPolicy(int maxAttempts, boolean idempotent, Set<Integer> retryableStatuses, Set<String> retryableFaultCodes,
+                Set<String> retryableExceptions) {
+        this.maxAttempts = maxAttempts;
+        this.idempotent = idempotent;
+        this.retryableStatuses = retryableStatuses;
+        this.retryableFaultCodes = retryableFaultCodes;
+        this.retryableExceptions = retryableExceptions;
+    }
+
+    boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceBusyException) {
+                return false;
+            }
+            if (matchesName(cause.getClass(), retryableExceptions)) {
+                return true;
+            }
+            if (cause instanceof SoapFaultClientException) {
+                SoapFaultClientException fault = (SoapFaultClientException) cause;
+                return fault.getFaultCode() != null && retryableFaultCodes.contains(fault.getFaultCode().getLocalPart());
+            }
+            if (cause instanceof WebServiceTransportException && cause.getMessage() != null) {
+                Matcher matcher = STATUS.matcher(cause.getMessage().trim());
+                if (matcher.find()) {
+                    return retryableStatuses.contains(Integer.parseInt(matcher.group(1)));
+                }
+            }
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+            if (idempotent && cause instanceof IOException && !(cause instanceof SocketTimeoutException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesName(Class<?> type, Collection<String> names) {
+        for (Class<?> c = type; c != null && !names.isEmpty(); c = c.getSuperclass()) {
+            if (names.contains(c.getName()) || names.contains(c.getSimpleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
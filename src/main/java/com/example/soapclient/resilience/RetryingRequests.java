@@ -0,0 +1,174 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.config.ServicesReloadedEvent;
+import com.example.soapclient.config.SoapServiceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Retries failed upstream calls for services with more than one attempt configured
+// ("retryMaxAttempts", or soap.retry.max-attempts). Attempts are spaced by exponential
+// backoff with full jitter, and each retry spends a token from a per-service budget of
+// soap.retry.budget-percent of regular traffic, so a struggling backend never sees
+// more than that share of extra load. Every attempt goes through the same pooled
+// template, and the security header comes from SecurityHeaderCache, so it is only
+// re-signed when a retry crosses into a new minute.
+@Component
+public class RetryingRequests {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryingRequests.class);
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.retry.max-attempts:1}")
+    private int maxAttempts;
+
+    @Value("${soap.retry.initial-backoff-ms:50}")
+    private long initialBackoffMs;
+
+    @Value("${soap.retry.max-backoff-ms:1000}")
+    private long maxBackoffMs;
+
+    @Value("${soap.retry.budget-percent:10}")
+    private int budgetPercent;
+
+    @Value("${soap.retry.statuses:503}")
+    private List<Integer> retryableStatuses;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ServiceRetries> retries = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Added and reconfigured services get a new policy and budget; unchanged ones keep theirs
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        for (String serviceName : event.getChangedServices()) {
+            register(serviceName, event.getServiceConfigs().get(serviceName));
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            retries.remove(serviceName);
+        }
+    }
+
+    public boolean isEnabled(String serviceName) {
+        return retries.containsKey(serviceName);
+    }
+
+    public byte[] execute(String serviceName, Supplier<byte[]> call) {
+        ServiceRetries serviceRetries = retries.get(serviceName);
+        if (serviceRetries == null) {
+            return call.get();
+        }
+        serviceRetries.budget.deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= serviceRetries.policy.maxAttempts || !serviceRetries.policy.isRetryable(e)) {
+                    throw e;
+                }
+                if (!serviceRetries.budget.tryWithdraw()) {
+                    serviceRetries.budgetExhausted.increment();
+                    throw e;
+                }
+                serviceRetries.retried.increment();
+                long backoffMs = backoffMillis(attempt);
+                logger.warn("Retrying request to service {} in {}ms (attempt {} of {}): {}",
+                        serviceName, backoffMs, attempt + 1, serviceRetries.policy.maxAttempts, rootMessage(e));
+                sleep(backoffMs, e);
+            }
+        }
+    }
+
+    // Full jitter: uniformly random up to the exponential bound
+    private long backoffMillis(int attempt) {
+        long bound = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static void sleep(long millis, RuntimeException failure) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.toString();
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        int attempts = serviceConfig.getRetryMaxAttempts() != null ? serviceConfig.getRetryMaxAttempts() : maxAttempts;
+        if (attempts <= 1) {
+            retries.remove(serviceName);
+            return;
+        }
+        RetryPolicy policy = new RetryPolicy(attempts, serviceConfig.isIdempotent(),
+                new HashSet<>(retryableStatuses),
+                toSet(serviceConfig.getRetryableFaultCodes()),
+                toSet(serviceConfig.getRetryableExceptions()));
+        retries.put(serviceName, new ServiceRetries(policy,
+                new RequestBudget(budgetPercent / 100.0, 10),
+                retryCounter(serviceName, "retried"),
+                retryCounter(serviceName, "budget-exhausted")));
+        logger.info("Retrying requests to service {} (maxAttempts={}, budget={}%)", serviceName, attempts, budgetPercent);
+    }
+
+    private static Set<String> toSet(List<String> values) {
+        return values != null ? new HashSet<>(values) : Collections.<String>emptySet();
+    }
+
+    private Counter retryCounter(String serviceName, String result) {
+        return Counter.builder("soap.proxy.retries")
+                .description("Retries sent, and retries skipped because the retry budget was spent")
+                .tag("service", serviceName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class ServiceRetries {
+        final RetryPolicy policy;
+        final RequestBudget budget;
+        final Counter retried;
+        final Counter budgetExhausted;
+
+        ServiceRetries(RetryPolicy policy, RequestBudget budget, Counter retried, Counter budgetExhausted) {
+            this.policy = policy;
+            this.budget = budget;
+            this.retried = retried;
+            this.budgetExhausted = budgetExhausted;
+        }
+    }
+}
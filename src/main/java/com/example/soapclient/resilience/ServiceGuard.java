@@ -0,0 +1,89 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Circuit breaker and concurrency limit in front of one backend service. Every upstream
+// call takes a Permit and releases it with its outcome; a call the guard won't admit
+// fails fast with ServiceBusyException (503).
+public class ServiceGuard {
+
+    static final Permit NOOP = new Permit(null, null);
+
+    private final String serviceName;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter limiter;
+    private final long slowCallNanos;
+    private final Counter circuitOpenRejections;
+    private final Counter limitRejections;
+
+    ServiceGuard(String serviceName, CircuitBreaker circuitBreaker, ConcurrencyLimiter limiter, long slowCallNanos,
+                 Counter circuitOpenRejections, Counter limitRejections) {
+        this.serviceName = serviceName;
+        this.circuitBreaker = circuitBreaker;
+        this.limiter = limiter;
+        this.slowCallNanos = slowCallNanos;
+        this.circuitOpenRejections = circuitOpenRejections;
+        this.limitRejections = limitRejections;
+    }
+
+    Permit acquire() {
+        if (!limiter.tryAcquire()) {
+            limitRejections.increment();
+            throw new ServiceBusyException(serviceName, "concurrency limit reached");
+        }
+        CircuitBreaker.State admittedIn = circuitBreaker.tryAcquire(System.nanoTime());
+        if (admittedIn == null) {
+            limiter.cancel();
+            circuitOpenRejections.increment();
+            throw new ServiceBusyException(serviceName, "circuit open");
+        }
+        return new Permit(this, admittedIn);
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public static class Permit {
+        private final ServiceGuard guard;
+        private final CircuitBreaker.State admittedIn;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(ServiceGuard guard, CircuitBreaker.State admittedIn) {
+            this.guard = guard;
+            this.admittedIn = admittedIn;
+        }
+
+        // error is null for a successful call. A SOAP fault still means the backend
+        // answered, so only transport errors and slow calls count against it.
+        public void release(Throwable error) {
+            if (guard == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            long now = System.nanoTime();
+            boolean failed = error != null && !(error instanceof SoapFaultClientException);
+            boolean bad = failed || now - start >= guard.slowCallNanos;
+            guard.limiter.onResult(bad);
+            guard.circuitBreaker.onResult(admittedIn, bad, now);
+        }
+
+        // For calls cancelled on our side (the losing half of a hedged pair, a reactive
+        // call whose subscriber went away): frees the slot without counting an outcome
+        public void cancel() {
+            if (guard == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            guard.limiter.cancel();
+            guard.circuitBreaker.cancel(admittedIn);
+        }
+    }
+}
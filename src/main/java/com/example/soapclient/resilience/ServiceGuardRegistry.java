@@ -0,0 +1,161 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.config.ServicesReloadedEvent;
+import com.example.soapclient.config.SoapServiceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// One ServiceGuard per configured service, with its state published as metrics:
+//   soap.circuit.state          0 = closed, 1 = half-open, 2 = open
+//   soap.concurrency.limit      current adaptive limit
+//   soap.concurrency.in-flight  calls currently holding a permit
+//   soap.proxy.rejected         calls shed, tagged by reason
+@Component
+public class ServiceGuardRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceGuardRegistry.class);
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Value("${soap.resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${soap.resilience.slow-call-threshold-ms:5000}")
+    private long slowCallThresholdMs;
+
+    @Value("${soap.resilience.circuit.window-size:20}")
+    private int windowSize;
+
+    @Value("${soap.resilience.circuit.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${soap.resilience.circuit.open-ms:10000}")
+    private long openMs;
+
+    @Value("${soap.resilience.circuit.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    @Value("${soap.resilience.limit.min:1}")
+    private int minLimit;
+
+    @Value("${soap.resilience.limit.max:200}")
+    private int maxLimit;
+
+    @Value("${soap.resilience.limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ServiceGuard> guards = new ConcurrentHashMap<>();
+
+    // Gauges hold on to the breaker and limiter they report, so they are re-registered
+    // along with the guard
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, SoapServiceConfig> serviceConfigs = requestPlanRegistry.getServiceConfigs();
+        for (Map.Entry<String, SoapServiceConfig> entry : serviceConfigs.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Added and reconfigured services get a fresh guard; unchanged ones keep their
+    // breaker state and learned limit
+    @EventListener
+    public void onServicesReloaded(ServicesReloadedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (String serviceName : event.getChangedServices()) {
+            register(serviceName, event.getServiceConfigs().get(serviceName));
+        }
+        for (String serviceName : event.getRemovedServices()) {
+            guards.remove(serviceName);
+            removeMeters(serviceName);
+        }
+    }
+
+    // Throws ServiceBusyException when the service's circuit is open or its limit is reached
+    public ServiceGuard.Permit acquire(String serviceName) {
+        ServiceGuard guard = guards.get(serviceName);
+        return guard != null ? guard.acquire() : ServiceGuard.NOOP;
+    }
+
+    private void register(String serviceName, SoapServiceConfig serviceConfig) {
+        long slowCallMs = serviceConfig.getSlowCallThresholdMs() != null ?
+                serviceConfig.getSlowCallThresholdMs() : slowCallThresholdMs;
+        int limitMax = serviceConfig.getMaxConcurrency() != null ? serviceConfig.getMaxConcurrency() : maxLimit;
+
+        removeMeters(serviceName);
+        List<Meter> serviceMeters = new ArrayList<>();
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(windowSize, failureRateThreshold,
+                TimeUnit.MILLISECONDS.toNanos(openMs), halfOpenProbes);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(minLimit, limitMax, backoffRatio);
+        ServiceGuard guard = new ServiceGuard(serviceName, circuitBreaker, limiter, TimeUnit.MILLISECONDS.toNanos(slowCallMs),
+                track(serviceMeters, rejectionCounter(serviceName, "circuit-open")),
+                track(serviceMeters, rejectionCounter(serviceName, "concurrency-limit")));
+        guards.put(serviceName, guard);
+
+        serviceMeters.add(Gauge.builder("soap.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Circuit breaker state (0 closed, 1 half-open, 2 open)")
+                .tag("service", serviceName)
+                .register(meterRegistry));
+        serviceMeters.add(Gauge.builder("soap.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+                .description("Adaptive concurrency limit")
+                .tag("service", serviceName)
+                .register(meterRegistry));
+        serviceMeters.add(Gauge.builder("soap.concurrency.in-flight", limiter, ConcurrencyLimiter::getInFlight)
+                .description("Upstream calls in flight")
+                .tag("service", serviceName)
+                .register(meterRegistry));
+        meters.put(serviceName, serviceMeters);
+
+        logger.info("Registered service guard for service {} (slowCallMs={}, limit={}..{})",
+                serviceName, slowCallMs, minLimit, limitMax);
+    }
+
+    private static Counter track(List<Meter> serviceMeters, Counter counter) {
+        serviceMeters.add(counter);
+        return counter;
+    }
+
+    private void removeMeters(String serviceName) {
+        List<Meter> serviceMeters = meters.remove(serviceName);
+        if (serviceMeters != null) {
+            for (Meter meter : serviceMeters) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    private Counter rejectionCounter(String serviceName, String reason) {
+        return Counter.builder("soap.proxy.rejected")
+                .description("Calls shed by the circuit breaker or concurrency limit")
+                .tag("service", serviceName)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
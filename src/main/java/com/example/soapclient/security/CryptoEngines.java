@@ -0,0 +1,61 @@
+package com.example.soapclient.security;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+// Per-thread MessageDigest and Signature instances. Both are stateful and not
+// thread-safe, but are reset after digest()/sign(), so each request thread can keep
+// reusing its own instead of going through the provider lookup every time.
+public final class CryptoEngines {
+
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<Map<String, Signer>> SIGNERS =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private CryptoEngines() {
+    }
+
+    public static MessageDigest messageDigest(String algorithm, String provider) throws GeneralSecurityException {
+        Map<String, MessageDigest> digests = DIGESTS.get();
+        String cacheKey = algorithm + "/" + provider;
+        MessageDigest digest = digests.get(cacheKey);
+        if (digest == null) {
+            digest = MessageDigest.getInstance(algorithm, provider);
+            digests.put(cacheKey, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    // Returns a Signature initialised for signing with the given key; initSign is
+    // only repeated when the key changes (e.g. after a keystore reload)
+    public static Signature signature(String algorithm, PrivateKey privateKey) throws GeneralSecurityException {
+        Map<String, Signer> signers = SIGNERS.get();
+        Signer signer = signers.get(algorithm);
+        if (signer == null) {
+            signer = new Signer(Signature.getInstance(algorithm));
+            signers.put(algorithm, signer);
+        }
+        if (signer.privateKey != privateKey) {
+            signer.signature.initSign(privateKey);
+            signer.privateKey = privateKey;
+        }
+        return signer.signature;
+    }
+
+    private static final class Signer {
+        private final Signature signature;
+        private PrivateKey privateKey;
+
+        private Signer(Signature signature) {
+            this.signature = signature;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.soapclient.security;
+
+// Immutable result of signing the UserInfo for one (username, correlation, minute):
+// everything needed to render the wsse:Security header without touching the key.
+public final class SecurityHeader {
+
+    private final long minuteBucket;
+    private final String userInfo;
+    private final String digestValue;
+    private final String signatureValue;
+    private final String keyName;
+
+    public SecurityHeader(long minuteBucket, String userInfo, String digestValue,
+                          String signatureValue, String keyName) {
+        this.minuteBucket = minuteBucket;
+        this.userInfo = userInfo;
+        this.digestValue = digestValue;
+        this.signatureValue = signatureValue;
+        this.keyName = keyName;
+    }
+
+    public long getMinuteBucket() {
+        return minuteBucket;
+    }
+
+    public String getUserInfo() {
+        return userInfo;
+    }
+
+    public String getDigestValue() {
+        return digestValue;
+    }
+
+    public String getSignatureValue() {
+        return signatureValue;
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+}
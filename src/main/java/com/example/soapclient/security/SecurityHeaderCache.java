@@ -0,0 +1,188 @@
+package com.example.soapclient.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caches signed security headers per (username, correlation, minute). The UserInfo
+// timestamp only changes once a minute, so every request within that minute can
+// share one SHA-1 + C14N + RSA pass. Shortly before each minute boundary a background
+// task signs the next minute's header for every identity used in the current one,
+// so steady traffic never waits on the RSA operation.
+//   soap.security.header-cache.requests   lookups, tagged result=hit|miss
+//   soap.security.header-cache.refreshes  headers pre-signed for the next minute
+//   soap.security.header-cache.size       identities being kept warm
+@Component
+public class SecurityHeaderCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityHeaderCache.class);
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    @Autowired
+    private SecurityHeaderSigner signer;
+
+    @Value("${soap.security.header-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${soap.security.header-cache.refresh-lead-ms:5000}")
+    private long refreshLeadMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Identity, Slot> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        FunctionCounter.builder("soap.security.header-cache.requests", hits, LongAdder::sum)
+                .description("Security header lookups served from the cache or signed on the request thread")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("soap.security.header-cache.requests", misses, LongAdder::sum)
+                .description("Security header lookups served from the cache or signed on the request thread")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("soap.security.header-cache.refreshes", refreshes, LongAdder::sum)
+                .description("Security headers pre-signed for the next minute")
+                .register(meterRegistry);
+        Gauge.builder("soap.security.header-cache.size", slots, Map::size)
+                .description("Identities whose security header is kept warm")
+                .register(meterRegistry);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "security-header-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNextRefresh();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public SecurityHeader get(String username, String correlation) throws Exception {
+        long bucket = SecurityHeaderSigner.currentMinuteBucket();
+        if (!enabled) {
+            return signer.sign(username, correlation, bucket);
+        }
+
+        Slot slot = slots.computeIfAbsent(new Identity(username, correlation), k -> new Slot());
+        SecurityHeader current = slot.current;
+        if (current != null && current.getMinuteBucket() == bucket) {
+            hits.increment();
+            return current;
+        }
+        SecurityHeader next = slot.next;
+        if (next != null && next.getMinuteBucket() == bucket) {
+            // Pre-signed by the refresher; promote it
+            slot.current = next;
+            hits.increment();
+            return next;
+        }
+
+        misses.increment();
+        SecurityHeader signed = signer.sign(username, correlation, bucket);
+        slot.current = signed;
+        return signed;
+    }
+
+    private void scheduleNextRefresh() {
+        long now = System.currentTimeMillis();
+        long nextBoundary = (now / MINUTE_MILLIS + 1) * MINUTE_MILLIS;
+        long delay = nextBoundary - refreshLeadMs - now;
+        if (delay < 0) {
+            // Already inside the lead window for this boundary; aim for the next one
+            delay += MINUTE_MILLIS;
+        }
+        refresher.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+        try {
+            long currentBucket = SecurityHeaderSigner.currentMinuteBucket();
+            long nextBucket = currentBucket + 1;
+            for (Map.Entry<Identity, Slot> entry : slots.entrySet()) {
+                Slot slot = entry.getValue();
+                SecurityHeader current = slot.current;
+                if (current == null || current.getMinuteBucket() < currentBucket - 1) {
+                    // Unused for over a minute; stop keeping it warm
+                    slots.remove(entry.getKey(), slot);
+                    continue;
+                }
+                SecurityHeader next = slot.next;
+                if (next == null || next.getMinuteBucket() != nextBucket) {
+                    Identity identity = entry.getKey();
+                    slot.next = signer.sign(identity.username, identity.correlation, nextBucket);
+                    refreshes.increment();
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to pre-sign security headers for the next minute", e);
+        } finally {
+            scheduleNextRefresh();
+        }
+    }
+
+    private static final class Slot {
+        private volatile SecurityHeader current;
+        private volatile SecurityHeader next;
+    }
+
+    private static final class Identity {
+        private final String username;
+        private final String correlation;
+
+        private Identity(String username, String correlation) {
+            this.username = username;
+            this.correlation = correlation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Identity)) {
+                return false;
+            }
+            Identity other = (Identity) o;
+            return Objects.equals(username, other.username) && Objects.equals(correlation, other.correlation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, correlation);
+        }
+    }
+}
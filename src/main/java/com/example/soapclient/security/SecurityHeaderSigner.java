@@ -0,0 +1,155 @@
+package com.example.soapclient.security;
+
+import com.example.soapclient.xml.XmlFactories;
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Produces the signed UserInfo values (digest, signature) for the custom
+// wsse:Security header. The UserInfo timestamp has minute granularity, so the result
+// only depends on (username, correlation, minute).
+//
+// SignedInfo is fixed apart from its DigestValue, so it is canonicalized once at
+// startup with a placeholder digest; signing then streams the canonical bytes before
+// and after the placeholder around the real digest straight into the Signature.
+@Component
+public class SecurityHeaderSigner {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmm").withZone(ZoneOffset.UTC);
+
+    private static final String DIGEST_PLACEHOLDER = "DIGEST_VALUE_PLACEHOLDER";
+
+    private static final String SIGNED_INFO =
+            "<ds:SignedInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" +
+                    "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>" +
+                    "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#rsa-sha1\"/>" +
+                    "<ds:Reference URI=\"#secinfo\">" +
+                    "<ds:DigestMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#sha1\"/>" +
+                    "<ds:DigestValue>" + DIGEST_PLACEHOLDER + "</ds:DigestValue>" +
+                    "<ds:Transforms>" +
+                    "<ds:Transform Algorithm=\"http://www.w3.org/TR/1999/REC-xpath-19991116\">" +
+                    "<ds:XPath>//*[@id='secinfo']/child::*/text()</ds:XPath>" +
+                    "</ds:Transform>" +
+                    "</ds:Transforms>" +
+                    "</ds:Reference>" +
+                    "</ds:SignedInfo>";
+
+    @Autowired
+    private SigningKeyCache signingKeyCache;
+
+    @Value("${keystore.path}")
+    private String keystorePath;
+
+    @Value("${keystore.password}")
+    private String keystorePassword;
+
+    @Value("${keystore.alias}")
+    private String keystoreAlias;
+
+    // Canonical SignedInfo bytes before and after the DigestValue text
+    private byte[] canonicalPrefix;
+
+    private byte[] canonicalSuffix;
+
+    @PostConstruct
+    public void init() {
+        try {
+            // Initialize XML Security
+            org.apache.xml.security.Init.init();
+
+            byte[] canonical = canonicalize(SIGNED_INFO);
+            byte[] placeholder = DIGEST_PLACEHOLDER.getBytes(StandardCharsets.UTF_8);
+            int index = indexOf(canonical, placeholder);
+            if (index < 0) {
+                throw new IllegalStateException("Digest placeholder lost during canonicalization");
+            }
+            canonicalPrefix = Arrays.copyOfRange(canonical, 0, index);
+            canonicalSuffix = Arrays.copyOfRange(canonical, index + placeholder.length, canonical.length);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to initialize security header signing", e);
+        }
+    }
+
+    public static long currentMinuteBucket() {
+        return System.currentTimeMillis() / 60_000L;
+    }
+
+    public SecurityHeader sign(String username, String correlation, long minuteBucket) throws Exception {
+        // Timestamp in GMT+00:00 for the start of the minute bucket
+        String timestamp = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(minuteBucket * 60_000L));
+
+        // Format the UserInfo string
+        String userInfoContent = String.format("USER=%s;CORR=%s;TIMESTAMP=%s",
+                username,
+                correlation,
+                timestamp);
+
+        // Create digest value
+        String digestValue = createDigest("SHA1", userInfoContent);
+
+        // Sign the canonical SignedInfo carrying that digest
+        String signatureValue = createSignature("SHA1withRSA", digestValue);
+
+        return new SecurityHeader(minuteBucket, userInfoContent, digestValue, signatureValue, username);
+    }
+
+    private String createDigest(String algorithm, String userInfoContent) throws Exception {
+        MessageDigest msgDigest = CryptoEngines.messageDigest(algorithm, "SUN");
+        msgDigest.update(userInfoContent.getBytes());
+        return Base64.getEncoder().encodeToString(msgDigest.digest());
+    }
+
+    private byte[] canonicalize(String signedInfoString) throws Exception {
+        // Parse the SignedInfo XML
+        Document doc = XmlFactories.parse(signedInfoString);
+
+        // Canonicalize the SignedInfo using ByteArrayOutputStream
+        Canonicalizer canonicalizer = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        canonicalizer.canonicalizeSubtree(doc.getDocumentElement(), baos);
+        return baos.toByteArray();
+    }
+
+    private String createSignature(String algorithm, String digestValue) throws Exception {
+        // Signing key is loaded from the keystore once and cached
+        PrivateKey privateKey = signingKeyCache.getPrivateKey(keystorePath, keystorePassword, keystoreAlias);
+
+        // Reuse this thread's Signature engine, already initialised with the key.
+        // Base64 never needs escaping in C14N output, so the digest is spliced in as-is.
+        Signature sig = CryptoEngines.signature(algorithm, privateKey);
+        sig.update(canonicalPrefix);
+        sig.update(digestValue.getBytes(StandardCharsets.US_ASCII));
+        sig.update(canonicalSuffix);
+
+        // Generate the signature
+        return Base64.getEncoder().encodeToString(sig.sign());
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.soapclient.security;
+
+import com.example.soapclient.xml.XmlFactories;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.soap.SoapHeader;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.dom.DOMSource;
+
+// Renders a signed SecurityHeader into the wsse:Security element of a SOAP header.
+// The static structure of the header is parsed once per thread into a template;
+// per request only the variable text nodes are filled in before the template's
+// children are imported into the message. Headers that are not DOM-backed (AXIOM
+// messages) get the filled-in template written through their Result instead.
+@Component
+public class SecurityHeaderWriter {
+
+    static final String SECEXT_NS = "http://schemas.xmlsoap.org/ws/2002/4/secext";
+
+    static final String DSIG_NS = "http://www.w3.org/2000/09/xmldsig#";
+
+    private static final QName SECURITY_QNAME = new QName(SECEXT_NS, "Security", "wsse");
+
+    private static final String TEMPLATE =
+            "<wsse:Security xmlns:wsse=\"" + SECEXT_NS + "\">" +
+                    "<sunsp:DisableInclusivePrefixList xmlns:sunsp=\"htt://schemas.sun.com/2006/03/wss/client\"></sunsp:DisableInclusivePrefixList>" +
+                    "<ds:Signature xmlns:ds=\"" + DSIG_NS + "\">" +
+                    "<ds:SignedInfo>" +
+                    "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>" +
+                    "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#rsa-sha1\"/>" +
+                    "<ds:Reference URI=\"#secinfo\">" +
+                    "<ds:DigestMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#sha1\"/>" +
+                    "<ds:DigestValue>-</ds:DigestValue>" +
+                    "<ds:Transforms>" +
+                    "<ds:Transform Algorithm=\"http://www.w3.org/TR/1999/REC-xpath-19991116\">" +
+                    "<ds:XPath>//*[@id='secinfo']/child::*/text()</ds:XPath>" +
+                    "</ds:Transform>" +
+                    "</ds:Transforms>" +
+                    "</ds:Reference>" +
+                    "</ds:SignedInfo>" +
+                    "<ds:SignatureValue>-</ds:SignatureValue>" +
+                    "<ds:KeyInfo>" +
+                    "<ds:KeyName>-</ds:KeyName>" +
+                    "</ds:KeyInfo>" +
+                    "</ds:Signature>" +
+                    "<t:UsernameToken xmlns:t=\"" + SECEXT_NS + "\" id=\"secinfo\">" +
+                    "<t:UserInfo>-</t:UserInfo>" +
+                    "</t:UsernameToken>" +
+                    "</wsse:Security>";
+
+    // DOM nodes are not thread-safe, so each thread fills in its own template
+    private static final ThreadLocal<Template> TEMPLATES = ThreadLocal.withInitial(Template::parse);
+
+    public void write(SoapHeader header, SecurityHeader securityHeader) throws Exception {
+        Template template = TEMPLATES.get();
+        template.digestValue.setData(securityHeader.getDigestValue());
+        template.signatureValue.setData(securityHeader.getSignatureValue());
+        template.keyName.setData(securityHeader.getKeyName());
+        template.userInfo.setData(securityHeader.getUserInfo());
+
+        if (!(header.getSource() instanceof DOMSource)) {
+            XmlFactories.transform(new DOMSource(template.security), header.getResult());
+            return;
+        }
+
+        // Create Security element and copy the filled-in sections into it
+        SoapHeaderElement security = header.addHeaderElement(SECURITY_QNAME);
+        Node securityNode = ((DOMSource) security.getSource()).getNode();
+        Document ownerDocument = securityNode.getOwnerDocument();
+        for (Node child = template.security.getFirstChild(); child != null; child = child.getNextSibling()) {
+            securityNode.appendChild(ownerDocument.importNode(child, true));
+        }
+    }
+
+    private static final class Template {
+        private final Element security;
+        private final Text digestValue;
+        private final Text signatureValue;
+        private final Text keyName;
+        private final Text userInfo;
+
+        private Template(Element security) {
+            this.security = security;
+            this.digestValue = textOf(security, DSIG_NS, "DigestValue");
+            this.signatureValue = textOf(security, DSIG_NS, "SignatureValue");
+            this.keyName = textOf(security, DSIG_NS, "KeyName");
+            this.userInfo = textOf(security, SECEXT_NS, "UserInfo");
+        }
+
+        private static Template parse() {
+            try {
+                return new Template(XmlFactories.parse(TEMPLATE).getDocumentElement());
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to parse security header template", e);
+            }
+        }
+
+        private static Text textOf(Element root, String namespace, String localName) {
+            return (Text) root.getElementsByTagNameNS(namespace, localName).item(0).getFirstChild();
+        }
+    }
+}
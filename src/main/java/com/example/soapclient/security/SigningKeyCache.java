@@ -0,0 +1,106 @@
+package com.example.soapclient.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Caches signing keys by keystore path + alias so the JKS is parsed once instead of
+// on every signed request. Keystores loaded with a "file:" path can optionally be
+// reloaded when the file's modification time changes.
+@Component
+public class SigningKeyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyCache.class);
+
+    @Value("${keystore.reload-on-change:false}")
+    private boolean reloadOnChange;
+
+    @Value("${keystore.reload-check-interval-ms:10000}")
+    private long reloadCheckIntervalMs;
+
+    private final ConcurrentMap<String, CachedKey> keys = new ConcurrentHashMap<>();
+
+    public PrivateKey getPrivateKey(String keystorePath, String keystorePassword, String alias) throws Exception {
+        String cacheKey = keystorePath + "#" + alias;
+        CachedKey cached = keys.get(cacheKey);
+        if (cached != null && !isStale(cached, keystorePath)) {
+            return cached.privateKey;
+        }
+        synchronized (this) {
+            cached = keys.get(cacheKey);
+            if (cached == null || isStale(cached, keystorePath)) {
+                cached = load(keystorePath, keystorePassword, alias);
+                keys.put(cacheKey, cached);
+            }
+            return cached.privateKey;
+        }
+    }
+
+    // Only file-system keystores can change underneath us; the mtime is checked at
+    // most once per reloadCheckIntervalMs so the signing path stays free of file I/O
+    private boolean isStale(CachedKey cached, String keystorePath) {
+        if (!reloadOnChange || !keystorePath.startsWith("file:")) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - cached.lastCheckedMillis < reloadCheckIntervalMs) {
+            return false;
+        }
+        cached.lastCheckedMillis = now;
+        return new File(keystorePath.substring(5)).lastModified() != cached.lastModified;
+    }
+
+    private CachedKey load(String keystorePath, String keystorePassword, String alias) throws Exception {
+        KeyStore keystore = KeyStore.getInstance("JKS");
+        long lastModified = 0L;
+
+        // Check if the path starts with "file:" or "classpath:"
+        String path = keystorePath;
+        if (path.startsWith("file:")) {
+            // Remove "file:" prefix and load from file system
+            path = path.substring(5);
+            lastModified = new File(path).lastModified();
+            try (FileInputStream fis = new FileInputStream(path)) {
+                keystore.load(fis, keystorePassword.toCharArray());
+            }
+        } else {
+            // Assume classpath resource
+            try (InputStream is = getClass().getResourceAsStream(path)) {
+                if (is == null) {
+                    throw new FileNotFoundException("Keystore file not found at: " + path);
+                }
+                keystore.load(is, keystorePassword.toCharArray());
+            }
+        }
+
+        // Get the private key
+        Key key = keystore.getKey(alias, keystorePassword.toCharArray());
+        if (!(key instanceof PrivateKey)) {
+            throw new RuntimeException("The specified key alias '" + alias + "' does not contain a private key");
+        }
+        logger.info("Loaded signing key '{}' from keystore {}", alias, keystorePath);
+        return new CachedKey((PrivateKey) key, lastModified);
+    }
+
+    private static final class CachedKey {
+        private final PrivateKey privateKey;
+        private final long lastModified;
+        private volatile long lastCheckedMillis = System.currentTimeMillis();
+
+        private CachedKey(PrivateKey privateKey, long lastModified) {
+            this.privateKey = privateKey;
+            this.lastModified = lastModified;
+        }
+    }
+}
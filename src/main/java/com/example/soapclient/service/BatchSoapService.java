@@ -0,0 +1,122 @@
+package com.example.soapclient.service;
+
+import com.example.soapclient.config.BulkheadExecutorRegistry;
+import com.example.soapclient.exception.ServiceBusyException;
+import com.example.soapclient.model.BatchItem;
+import com.example.soapclient.model.BatchItemResult;
+import com.example.soapclient.model.BatchRequest;
+import com.example.soapclient.model.BatchResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Fans a batch of SOAP calls out over the per-service bulkheads (and so over the pooled
+// per-service connections), at most `parallelism` in flight per batch. Items are signed
+// through the shared SecurityHeaderCache, so a batch costs one signature per identity
+// and minute rather than one per item.
+@Service
+public class BatchSoapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSoapService.class);
+
+    @Value("${soap.batch.max-parallelism:16}")
+    private int maxParallelism;
+
+    @Autowired
+    private SoapProxyService soapProxyService;
+
+    @Autowired
+    private BulkheadExecutorRegistry bulkheadExecutorRegistry;
+
+    public BatchResponse processBatch(BatchRequest request) {
+        List<BatchItem> items = request.getItems() != null ? request.getItems() : Collections.<BatchItem>emptyList();
+        int parallelism = request.getParallelism() != null ?
+                Math.max(1, Math.min(request.getParallelism(), maxParallelism)) : maxParallelism;
+        logger.info("Received batch of {} items (parallelism {})", items.size(), parallelism);
+
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(parallelism);
+        List<CompletableFuture<BatchItemResult>> futures = new ArrayList<>(items.size());
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                permits.acquire();
+                CompletableFuture<BatchItemResult> future = submit(i, items.get(i));
+                future.whenComplete((result, error) -> permits.release());
+                futures.add(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while dispatching batch", e);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<BatchItemResult> future : futures) {
+            results.add(future.join());
+        }
+
+        BatchResponse response = new BatchResponse();
+        response.setResults(results);
+        response.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    private CompletableFuture<BatchItemResult> submit(int index, BatchItem item) {
+        String serviceName = item.getServiceName();
+        if (serviceName == null) {
+            return CompletableFuture.completedFuture(
+                    failure(index, item, HttpStatus.INTERNAL_SERVER_ERROR, "Unknown service: null", 0));
+        }
+        try {
+            return bulkheadExecutorRegistry.submit(serviceName, () -> call(index, item));
+        } catch (ServiceBusyException e) {
+            return CompletableFuture.completedFuture(failure(index, item, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), 0));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(failure(index, item, HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), 0));
+        }
+    }
+
+    private BatchItemResult call(int index, BatchItem item) {
+        long start = System.nanoTime();
+        try {
+            String response = soapProxyService.processSoapRequest(item.getServiceName(), item.getPayload(),
+                    item.getSoapAction(), Collections.<String, String>emptyMap());
+
+            BatchItemResult result = new BatchItemResult();
+            result.setIndex(index);
+            result.setServiceName(item.getServiceName());
+            result.setStatus(HttpStatus.OK.value());
+            result.setResponse(response);
+            result.setDurationMs(elapsedMillis(start));
+            return result;
+        } catch (ServiceBusyException e) {
+            return failure(index, item, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), elapsedMillis(start));
+        } catch (RuntimeException e) {
+            logger.warn("Batch item {} for service {} failed", index, item.getServiceName(), e);
+            return failure(index, item, HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), elapsedMillis(start));
+        }
+    }
+
+    private static BatchItemResult failure(int index, BatchItem item, HttpStatus status, String error, long durationMs) {
+        BatchItemResult result = new BatchItemResult();
+        result.setIndex(index);
+        result.setServiceName(item.getServiceName());
+        result.setStatus(status.value());
+        result.setError(error);
+        result.setDurationMs(durationMs);
+        return result;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
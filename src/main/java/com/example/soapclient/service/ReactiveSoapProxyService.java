@@ -0,0 +1,194 @@
+package com.example.soapclient.service;
+
+import com.example.soapclient.audit.PayloadAuditLogger;
+import com.example.soapclient.audit.PayloadCapture;
+import com.example.soapclient.config.ReactiveClientRegistry;
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.exception.ServiceBusyException;
+import com.example.soapclient.metrics.ProxyMetrics;
+import com.example.soapclient.resilience.ServiceGuard;
+import com.example.soapclient.resilience.ServiceGuardRegistry;
+import com.example.soapclient.xml.XmlFactories;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+import org.springframework.ws.transport.TransportInputStream;
+import org.springframework.ws.transport.TransportOutputStream;
+import reactor.core.publisher.Mono;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+// Sends the same envelope SoapProxyService builds (namespaces, cached security header)
+// over a non-blocking WebClient, so in-flight calls don't each hold a thread.
+@Service
+@ConditionalOnProperty(name = "soap.proxy.mode", havingValue = "reactive")
+public class ReactiveSoapProxyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSoapProxyService.class);
+
+    @Autowired
+    private SoapProxyService soapProxyService;
+
+    @Autowired
+    private ReactiveClientRegistry reactiveClientRegistry;
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Autowired
+    private ProxyMetrics proxyMetrics;
+
+    @Autowired
+    private PayloadAuditLogger payloadAuditLogger;
+
+    @Autowired
+    private ServiceGuardRegistry serviceGuardRegistry;
+
+    // The request body is read and the envelope built before returning, on the caller's
+    // thread; only the exchange itself is deferred to the event loop
+    public Mono<String> processSoapRequest(String serviceName, InputStream xmlPayload, String soapAction) {
+        PayloadCapture capture = payloadAuditLogger.begin(serviceName);
+        CapturingOutputStream requestStream = new CapturingOutputStream();
+        try {
+            WebServiceMessage request = soapProxyService.createRequestMessage(serviceName, capture.request(xmlPayload), soapAction);
+            request.writeTo(requestStream);
+        } catch (IOException e) {
+            capture.failure(e);
+            throw new RuntimeException("Error processing SOAP request", e);
+        } catch (RuntimeException e) {
+            capture.failure(e);
+            throw e;
+        }
+
+        WebServiceMessageFactory messageFactory = requestPlanRegistry.getPlan(serviceName).getWebServiceTemplate().getMessageFactory();
+        return Mono.defer(() -> {
+            ServiceGuard.Permit permit = serviceGuardRegistry.acquire(serviceName);
+            long start = System.nanoTime();
+            return reactiveClientRegistry.getWebClient(serviceName)
+                    .post()
+                    .headers(headers -> headers.addAll(requestStream.headers))
+                    .bodyValue(requestStream.toByteArray())
+                    .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                            .defaultIfEmpty(new byte[0])
+                            .map(body -> {
+                                proxyMetrics.record(serviceName, "upstream", System.nanoTime() - start);
+                                long copyStart = System.nanoTime();
+                                try {
+                                    return readResponse(messageFactory, response, body);
+                                } finally {
+                                    proxyMetrics.record(serviceName, "copy", System.nanoTime() - copyStart);
+                                }
+                            }))
+                    .doOnSuccess(response -> permit.release(null))
+                    .doOnError(permit::release)
+                    // Caller went away or timed out: says nothing about the backend
+                    .doOnCancel(permit::cancel);
+        })
+                .doOnNext(response -> logger.debug("Received SOAP response: {}", response))
+                .doOnSuccess(capture::success)
+                .doOnError(capture::failure)
+                .onErrorMap(e -> !(e instanceof ServiceBusyException), e -> {
+                    logger.error("Error processing SOAP request", e);
+                    return new RuntimeException("Error processing SOAP request", e);
+                });
+    }
+
+    // Mirrors WebServiceTemplate: faults win over the HTTP status, other error statuses
+    // become transport exceptions, otherwise the payload is serialized as-is
+    private String readResponse(WebServiceMessageFactory messageFactory, ClientResponse response, byte[] body) {
+        HttpStatus status = response.statusCode();
+        try {
+            WebServiceMessage message = body.length > 0 ?
+                    messageFactory.createWebServiceMessage(new ResponseInputStream(response.headers().asHttpHeaders(), body)) :
+                    null;
+            if (message instanceof SoapMessage && ((SoapMessage) message).hasFault()) {
+                throw new SoapFaultClientException((SoapMessage) message);
+            }
+            if (status.isError()) {
+                throw new WebServiceTransportException(status.value() + " " + status.getReasonPhrase());
+            }
+            Source payload = message != null ? message.getPayloadSource() : null;
+            if (payload == null) {
+                return "";
+            }
+            StringWriter responseWriter = new StringWriter();
+            XmlFactories.transform(payload, new StreamResult(responseWriter));
+            return responseWriter.toString();
+        } catch (IOException | TransformerException e) {
+            throw new RuntimeException("Error processing SOAP response", e);
+        }
+    }
+
+    // Collects the serialized envelope together with the transport headers
+    // (Content-Type, SOAPAction) the message factory would send with it
+    private static class CapturingOutputStream extends TransportOutputStream {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        @Override
+        public void addHeader(String name, String value) {
+            headers.add(name, value);
+        }
+
+        @Override
+        protected OutputStream createOutputStream() {
+            return body;
+        }
+
+        byte[] toByteArray() {
+            return body.toByteArray();
+        }
+    }
+
+    // Exposes the response headers so the factory can honour the upstream Content-Type
+    private static class ResponseInputStream extends TransportInputStream {
+
+        private final HttpHeaders headers;
+
+        private final byte[] body;
+
+        ResponseInputStream(HttpHeaders headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        protected InputStream createInputStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public Iterator<String> getHeaderNames() {
+            return headers.keySet().iterator();
+        }
+
+        @Override
+        public Iterator<String> getHeaders(String name) {
+            List<String> values = headers.get(name);
+            return values != null ? values.iterator() : Collections.<String>emptyIterator();
+        }
+    }
+}
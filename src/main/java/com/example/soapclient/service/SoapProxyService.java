@@ -1,412 +1,361 @@
 package com.example.soapclient.service;
 
-import com.example.soapclient.config.CustomHttpComponentsMessageSender;
-import com.example.soapclient.config.SoapServiceConfig;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import org.apache.http.Header;
-import org.apache.http.HttpException;
-import org.apache.http.HttpHost;
-import org.apache.http.HttpRequest;
-import org.apache.http.client.HttpClient;
-import org.apache.http.HttpRequestInterceptor; // Import HttpRequestInterceptor
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.protocol.HttpContext;
+import com.example.soapclient.audit.PayloadAuditLogger;
+import com.example.soapclient.audit.PayloadCapture;
+import com.example.soapclient.cache.InFlightRequests;
+import com.example.soapclient.cache.RequestFingerprint;
+import com.example.soapclient.cache.ResponseCache;
+import com.example.soapclient.config.RequestPlan;
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.metrics.ProxyMetrics;
+import com.example.soapclient.resilience.HedgedRequests;
+import com.example.soapclient.resilience.RequestAbortHandle;
+import com.example.soapclient.resilience.RetryingRequests;
+import com.example.soapclient.resilience.ServiceGuard;
+import com.example.soapclient.resilience.ServiceGuardRegistry;
+import com.example.soapclient.security.SecurityHeader;
+import com.example.soapclient.security.SecurityHeaderCache;
+import com.example.soapclient.security.SecurityHeaderWriter;
+import com.example.soapclient.xml.OperationPayloadExtractor;
+import com.example.soapclient.xml.SourcePayload;
+import com.example.soapclient.xml.XmlFactories;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.client.core.WebServiceMessageCallback;
-import org.springframework.ws.client.core.WebServiceTemplate;
-import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.soap.SoapHeader;
-import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapMessage;
-import org.springframework.ws.transport.WebServiceMessageSender;
-import org.springframework.ws.transport.http.HttpComponentsMessageSender;
-import org.springframework.xml.transform.StringSource;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.xml.sax.InputSource;
-
-import java.io.*;
-
-import org.w3c.dom.Document;
-import javax.annotation.PostConstruct;
-import javax.xml.namespace.QName;
+import org.springframework.ws.stream.StreamingWebServiceMessage;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamResult;
-import java.security.*;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Map;
-import java.util.TimeZone;
-import java.util.Base64;
-
-import org.apache.xml.security.c14n.Canonicalizer;
-
+import javax.xml.transform.stream.StreamSource;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @Service
 public class SoapProxyService {
     private static final Logger logger = LoggerFactory.getLogger(SoapProxyService.class);
 
-    @Value("${soap.services}")
-    private String servicesJson;
+    @Value("${soap.proxy.stream-buffer-size:8192}")
+    private int streamBufferSize;
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Autowired
+    private SecurityHeaderCache securityHeaderCache;
+
+    @Autowired
+    private ResponseCache responseCache;
 
-    private Map<String, SoapServiceConfig> serviceConfigs;
+    @Autowired
+    private InFlightRequests inFlightRequests;
 
-    @Value("${soap.service.username:test}")
-    private String username;
+    @Autowired
+    private ProxyMetrics proxyMetrics;
 
-    @Value("${soap.service.password:test123}")
-    private String password;
+    @Autowired
+    private PayloadAuditLogger payloadAuditLogger;
 
     @Autowired
-    private WebServiceTemplate webServiceTemplate;
+    private ServiceGuardRegistry serviceGuardRegistry;
 
-    @Value("${keystore.path}")
-    private String keystorePath;
+    @Autowired
+    private HedgedRequests hedgedRequests;
 
-    @Value("${keystore.password}")
-    private String keystorePassword;
+    @Autowired
+    private RetryingRequests retryingRequests;
 
-    @Value("${keystore.alias}")
-    private String keystoreAlias;
+    @Autowired
+    private SecurityHeaderWriter securityHeaderWriter;
 
-    @PostConstruct
-    public void init() {
+    public String processSoapRequest(String serviceName, InputStream xmlPayload, String soapAction, Map<String, String> headers) {
+        // Resolved once, so a configuration reload never changes the plan mid-request
+        RequestPlan plan = requestPlanRegistry.getPlan(serviceName);
+        PayloadCapture capture = payloadAuditLogger.begin(serviceName);
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            serviceConfigs = mapper.readValue(servicesJson, new TypeReference<Map<String, SoapServiceConfig>>() {});
-
-            // Initialize XML Security
-            org.apache.xml.security.Init.init();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to initialize", e);
+            // Stream the operation element straight out of the request body
+            Source requestSource = extractRequest(plan, capture.request(xmlPayload));
+            String response = sendAndReceiveString(plan, requestSource, soapAction);
+            capture.success(response);
+            return response;
+        } catch (RuntimeException e) {
+            capture.failure(e);
+            throw e;
         }
     }
 
     public String processSoapRequest(String serviceName, String xmlPayload, String soapAction, Map<String, String> headers) {
-        String response = null;
-        // Get the service configuration
-        SoapServiceConfig serviceConfig = serviceConfigs.get(serviceName);
-        if (serviceConfig == null) {
-            throw new IllegalArgumentException("Unknown service: " + serviceName);
+        RequestPlan plan = requestPlanRegistry.getPlan(serviceName);
+        PayloadCapture capture = payloadAuditLogger.begin(serviceName);
+        capture.request(xmlPayload);
+        try {
+            Source requestSource = extractRequest(plan, new StringReader(xmlPayload));
+            String response = sendAndReceiveString(plan, requestSource, soapAction);
+            capture.success(response);
+            return response;
+        } catch (RuntimeException e) {
+            capture.failure(e);
+            throw e;
         }
+    }
 
-        // Use provided soapAction or fall back to configured one
-        String effectiveSoapAction = soapAction != null ? soapAction : serviceConfig.getSoapAction();
-
-        logger.info("Service: {}, headerRequired: {}, soapAction: {}",
-                serviceName, serviceConfig.isHeaderRequired(), effectiveSoapAction);
-        logger.info("Original payload: {}", xmlPayload);
+    // Streaming variant: the response payload is serialized straight into responseStream
+    // through a bounded buffer instead of being collected into a String first
+    public void processSoapRequest(String serviceName, InputStream xmlPayload, String soapAction, Map<String, String> headers,
+                                   OutputStream responseStream) throws IOException {
+        RequestPlan plan = requestPlanRegistry.getPlan(serviceName);
+        PayloadCapture capture = payloadAuditLogger.begin(serviceName);
+        OutputStream capturedStream = capture.response(responseStream);
+        try {
+            Source requestSource = extractRequest(plan, capture.request(xmlPayload));
 
-        // Extract the content using configured tags
-        String startTag = serviceConfig.getStartTag() != null ? serviceConfig.getStartTag() : "<Add>";
-        String endTag = serviceConfig.getEndTag() != null ? serviceConfig.getEndTag() : "</Add>";
+            if (isBuffered(plan)) {
+                capturedStream.write(sendAndReceiveBuffered(plan, requestSource, soapAction));
+                capturedStream.flush();
+            } else {
+                BufferedOutputStream bufferedStream = new BufferedOutputStream(capturedStream, streamBufferSize);
+                sendRequest(plan, requestSource, soapAction, new StreamResult(bufferedStream));
+                bufferedStream.flush();
+            }
+            capture.success();
+        } catch (IOException | RuntimeException e) {
+            capture.failure(e);
+            throw e;
+        }
+    }
 
-        String actualRequest;
-        int startIndex = xmlPayload.indexOf(startTag);
-        int endIndex = xmlPayload.indexOf(endTag) + endTag.length();
+    // Builds the outgoing message exactly as the template path would (payload, envelope
+    // namespaces, security header) for callers that do their own transport
+    public WebServiceMessage createRequestMessage(String serviceName, InputStream xmlPayload, String soapAction) {
+        RequestPlan plan = requestPlanRegistry.getPlan(serviceName);
+        Source requestSource = extractRequest(plan, xmlPayload);
 
-        if (startIndex != -1 && endIndex != -1) {
-            actualRequest = xmlPayload.substring(startIndex, endIndex);
-            logger.info("Extracted content using tags {} and {}: {}", startTag, endTag, actualRequest);
-        } else {
-            throw new IllegalArgumentException(
-                    String.format("Could not find content between tags %s and %s in payload", startTag, endTag));
+        try {
+            long start = System.nanoTime();
+            WebServiceMessage message = plan.getWebServiceTemplate().getMessageFactory().createWebServiceMessage();
+            writePayload(plan, message, requestSource);
+            createMessageCallback(plan, plan.effectiveSoapAction(soapAction)).doWithMessage(message);
+            proxyMetrics.record(serviceName, "build", System.nanoTime() - start);
+            return message;
+        } catch (IOException | TransformerException e) {
+            throw new RuntimeException("Error processing SOAP request", e);
         }
+    }
 
-        // Extract just the content between tags
-        String tagContent = actualRequest.substring(
-                actualRequest.indexOf(">") + 1,
-                actualRequest.lastIndexOf("<")
-        ).trim();
+    public boolean isStreamingResponse(String serviceName) {
+        return requestPlanRegistry.getPlan(serviceName).getConfig().isStreamResponse();
+    }
 
-        // Get namespace configuration with defaults
-        String requestNamespace = serviceConfig.getRequestNamespace() != null ?
-                serviceConfig.getRequestNamespace() : "http://tempuri.org/";
+    private Source extractRequest(RequestPlan plan, InputStream xmlPayload) {
+        return extractRequest(plan, extractor -> extractor.extract(xmlPayload));
+    }
 
-        // Create the request with configured namespace
-        String tagName = startTag.substring(1, startTag.length() - 1); // Remove < and > from startTag
-        String formattedRequest = String.format(
-                "<%s xmlns=\"%s\">%s</%s>",
-                tagName,
-                requestNamespace,
-                tagContent,
-                tagName
-        );
+    private Source extractRequest(RequestPlan plan, Reader xmlPayload) {
+        return extractRequest(plan, extractor -> extractor.extract(xmlPayload));
+    }
 
-        logger.info("Formatted request: {}", formattedRequest);
+    // Shared by both payload types, so they report malformed input and time the
+    // "extract" stage the same way
+    private Source extractRequest(RequestPlan plan, PayloadExtraction extraction) {
+        long start = System.nanoTime();
+        try {
+            return extraction.extract(plan.getExtractor());
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed SOAP payload for service " + plan.getServiceName(), e);
+        } finally {
+            proxyMetrics.record(plan.getServiceName(), "extract", System.nanoTime() - start);
+        }
+    }
 
-        // Create source from the formatted request
-        Source requestSource = new StringSource(formattedRequest);
+    private String sendAndReceiveString(RequestPlan plan, Source requestSource, String soapAction) {
+        if (isBuffered(plan)) {
+            return new String(sendAndReceiveBuffered(plan, requestSource, soapAction), StandardCharsets.UTF_8);
+        }
 
         // Prepare response writer
         StringWriter responseWriter = new StringWriter();
-        StreamResult result = new StreamResult(responseWriter);
+        sendRequest(plan, requestSource, soapAction, new StreamResult(responseWriter));
 
-        // Store the original message sender to restore later
-        WebServiceMessageSender[] originalMessageSenders = webServiceTemplate.getMessageSenders();
+        String response = responseWriter.toString();
+        logger.debug("Received SOAP response: {}", response);
+        return response;
+    }
+
+    // Cached and coalesced services need the request fingerprint, and so a buffered request;
+    // hedged and retried calls need it to send the same body more than once
+    private boolean isBuffered(RequestPlan plan) {
+        String serviceName = plan.getServiceName();
+        return responseCache.isEnabled(serviceName) || plan.getConfig().isCoalesceRequests()
+                || hedgedRequests.isEnabled(serviceName) || retryingRequests.isEnabled(serviceName);
+    }
 
+    // Serves repeated idempotent requests from the response cache and lets identical concurrent
+    // requests share one upstream call. The operation body is serialized once: its bytes feed
+    // the fingerprint and are then sent upstream.
+    private byte[] sendAndReceiveBuffered(RequestPlan plan, Source requestSource, String soapAction) {
+        String serviceName = plan.getServiceName();
+        byte[] requestBytes;
         try {
-            // Remove all interceptors to prevent WSS4J from adding its headers
-            webServiceTemplate.setInterceptors(new ClientInterceptor[]{});
+            ByteArrayOutputStream requestStream = new ByteArrayOutputStream();
+            XmlFactories.transform(requestSource, new StreamResult(requestStream));
+            requestBytes = requestStream.toByteArray();
+        } catch (TransformerException e) {
+            throw new IllegalArgumentException("Malformed SOAP payload for service " + serviceName, e);
+        }
 
-            // --- MODIFIED: configure HTTP proxy and use CustomHttpComponentsMessageSender ---
-            if (serviceConfig.isProxyEnabled()
-                    && serviceConfig.getProxyHost() != null
-                    && serviceConfig.getProxyPort() > 0) {
+        String fingerprint = RequestFingerprint.of(serviceName, plan.effectiveSoapAction(soapAction), requestBytes);
+        byte[] cached = responseCache.get(serviceName, fingerprint);
+        if (cached != null) {
+            logger.debug("Response cache hit for service {}", serviceName);
+            return cached;
+        }
 
-                logger.info("Using proxy {}:{} for SOAP request", serviceConfig.getProxyHost(), serviceConfig.getProxyPort());
-                HttpClientBuilder builder = HttpClientBuilder.create();
-                HttpHost proxy = new HttpHost(serviceConfig.getProxyHost(), serviceConfig.getProxyPort());
-                builder.setProxy(proxy);
+        Supplier<byte[]> upstreamCall = () -> {
+            byte[] response = retryingRequests.execute(serviceName, () -> hedgedRequests.execute(serviceName, () -> {
+                ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
+                sendRequest(plan, new StreamSource(new ByteArrayInputStream(requestBytes)),
+                        soapAction, new StreamResult(responseStream));
+                return responseStream.toByteArray();
+            }));
+            responseCache.put(serviceName, fingerprint, response);
+            return response;
+        };
+        return plan.getConfig().isCoalesceRequests() ?
+                inFlightRequests.execute(serviceName, fingerprint, upstreamCall) : upstreamCall.get();
+    }
 
-                // Build the HttpClient with proxy configuration
-                HttpClient client = builder.build();
+    private void sendRequest(RequestPlan plan, Source requestSource, String soapAction, Result result) {
+        String serviceName = plan.getServiceName();
+        // Use provided soapAction or fall back to configured one
+        String effectiveSoapAction = plan.effectiveSoapAction(soapAction);
 
-                // Use our custom message sender which will handle headers properly
-                CustomHttpComponentsMessageSender messageSender = new CustomHttpComponentsMessageSender(client);
-                webServiceTemplate.setMessageSender(messageSender);
+        logger.debug("Service: {}, headerRequired: {}, soapAction: {}",
+                serviceName, plan.isHeaderRequired(), effectiveSoapAction);
 
-            } else {
-                // If no proxy is enabled, use the default HttpComponentsMessageSender
-                webServiceTemplate.setMessageSender(new HttpComponentsMessageSender());
-            }
-            // --- end modified configuration ---
-
-
-            // Create message callback with configurable envelope settings
-            WebServiceMessageCallback messageCallback = message -> {
-                SoapMessage soapMessage = (SoapMessage) message;
-
-                // Always set SOAPAction if available
-                if (effectiveSoapAction != null && !effectiveSoapAction.isEmpty()) {
-                    logger.info("Setting SOAPAction: {}", effectiveSoapAction);
-                    soapMessage.setSoapAction(effectiveSoapAction);
-                }
-
-                // Configure envelope namespace if provided
-                if (serviceConfig.getEnvelopeNamespace() != null) {
-                    soapMessage.getEnvelope().addNamespaceDeclaration(
-                            serviceConfig.getEnvelopePrefix() != null ? serviceConfig.getEnvelopePrefix() : "soap",
-                            serviceConfig.getEnvelopeNamespace()
-                    );
-                }
-
-                // Configure body namespace if provided
-                if (serviceConfig.getBodyNamespace() != null) {
-                    soapMessage.getEnvelope().getBody().addNamespaceDeclaration(
-                            serviceConfig.getBodyPrefix() != null ? serviceConfig.getBodyPrefix() : "soap",
-                            serviceConfig.getBodyNamespace()
-                    );
-                }
-
-                // Add our custom security header if required
-                if (serviceConfig.isHeaderRequired()) {
-                    addSecurityHeader(soapMessage, serviceName);
-                }
-            };
-
-            // Send request to SOAP service
-            webServiceTemplate.sendSourceAndReceiveToResult(
-                    serviceConfig.getUrl(),
-                    requestSource,
-                    messageCallback,
-                    result
+        // Fails fast with a 503 while the backend's circuit is open or its limit is used up
+        ServiceGuard.Permit permit = serviceGuardRegistry.acquire(serviceName);
+        Throwable failure = null;
+        try {
+            WebServiceMessageCallback messageCallback = createMessageCallback(plan, effectiveSoapAction);
+
+            // Same as sendSourceAndReceiveToResult, with the request build and the response
+            // copy timed separately; whatever remains is the upstream round-trip
+            long[] stageNanos = new long[2];
+            long start = System.nanoTime();
+            // The plan's template (pooled sender, no interceptors) is never mutated here,
+            // so concurrent requests don't interfere
+            plan.getWebServiceTemplate().sendAndReceive(
+                    plan.getUrl(),
+                    message -> {
+                        long buildStart = System.nanoTime();
+                        writePayload(plan, message, requestSource);
+                        messageCallback.doWithMessage(message);
+                        stageNanos[0] = System.nanoTime() - buildStart;
+                        proxyMetrics.record(serviceName, "build", stageNanos[0]);
+                    },
+                    response -> {
+                        long copyStart = System.nanoTime();
+                        Source payload = response.getPayloadSource();
+                        if (payload != null) {
+                            XmlFactories.transform(payload, result);
+                        }
+                        stageNanos[1] = System.nanoTime() - copyStart;
+                        return Boolean.TRUE;
+                    }
             );
-
-            response = responseWriter.toString();
-            logger.debug("Received SOAP response: {}", response);
-
+            long totalNanos = System.nanoTime() - start;
+            proxyMetrics.record(serviceName, "upstream", totalNanos - stageNanos[0] - stageNanos[1]);
+            proxyMetrics.record(serviceName, "copy", stageNanos[1]);
         } catch (Exception e) {
-            logger.error("Error processing SOAP request", e);
-            e.printStackTrace(); // Consider more robust error handling
-            throw new RuntimeException("Error processing SOAP request", e); // Re-throw to indicate failure
+            RequestAbortHandle abortHandle = RequestAbortHandle.current();
+            if (abortHandle != null && abortHandle.isAborted()) {
+                // The other half of a hedged pair answered first
+                permit.cancel();
+                throw new RuntimeException("SOAP request to " + serviceName + " was cancelled", e);
+            }
+            failure = e;
+            logger.error("Error processing SOAP request to service {}", serviceName, e);
+            throw new RuntimeException("Error processing SOAP request", e);
         } finally {
-            // Reset message sender to the original one
-            webServiceTemplate.setMessageSenders(originalMessageSenders);
-            // Reset interceptors to default state (which is likely empty in this case)
-            webServiceTemplate.setInterceptors(new ClientInterceptor[]{});
+            permit.release(failure);
         }
-        return response;
     }
 
-    private String createDigest(String algorithm, String userInfoContent) throws Exception {
-        MessageDigest msgDigest = MessageDigest.getInstance(algorithm, "SUN");
-        msgDigest.update(userInfoContent.getBytes());
-        return Base64.getEncoder().encodeToString(msgDigest.digest());
+    // Streaming (AXIOM) messages take the payload as a writer callback that runs while the
+    // message goes onto the wire; SAAJ messages get it copied into their DOM body
+    private void writePayload(RequestPlan plan, WebServiceMessage message, Source requestSource)
+            throws TransformerException {
+        if (message instanceof StreamingWebServiceMessage) {
+            ((StreamingWebServiceMessage) message).setStreamingPayload(
+                    new SourcePayload(plan.getOperation(), requestSource));
+        } else {
+            XmlFactories.transform(requestSource, message.getPayloadResult());
+        }
     }
 
-    private String canonicalize(String signedInfoString) throws Exception {
-        // Parse the SignedInfo XML
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new InputSource(new StringReader(signedInfoString)));
-
-        // Canonicalize the SignedInfo using ByteArrayOutputStream
-        Canonicalizer canonicalizer = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        canonicalizer.canonicalizeSubtree(doc.getDocumentElement(), baos);
-        return baos.toString("UTF-8");
-    }
+    // Create message callback with configurable envelope settings
+    private WebServiceMessageCallback createMessageCallback(RequestPlan plan, String effectiveSoapAction) {
+        return message -> {
+            SoapMessage soapMessage = (SoapMessage) message;
 
-    private String createSignature(String algorithm, String canonValue) throws Exception {
-        // Load the keystore from external path
-        KeyStore keystore = KeyStore.getInstance("JKS");
-
-        // Check if the path starts with "file:" or "classpath:"
-        String path = keystorePath;
-        if (path.startsWith("file:")) {
-            // Remove "file:" prefix and load from file system
-            path = path.substring(5);
-            try (FileInputStream fis = new FileInputStream(path)) {
-                keystore.load(fis, keystorePassword.toCharArray());
+            // Always set SOAPAction if available
+            if (effectiveSoapAction != null && !effectiveSoapAction.isEmpty()) {
+                logger.debug("Setting SOAPAction: {}", effectiveSoapAction);
+                soapMessage.setSoapAction(effectiveSoapAction);
             }
-        } else {
-            // Assume classpath resource
-            try (InputStream is = getClass().getResourceAsStream(path)) {
-                if (is == null) {
-                    throw new FileNotFoundException("Keystore file not found at: " + path);
-                }
-                keystore.load(is, keystorePassword.toCharArray());
-            }
-        }
 
-        // Get the private key
-        Key key = keystore.getKey(keystoreAlias, keystorePassword.toCharArray());
-        if (!(key instanceof PrivateKey)) {
-            throw new RuntimeException("The specified key alias '" + keystoreAlias + "' does not contain a private key");
-        }
-        PrivateKey privateKey = (PrivateKey) key;
+            // Configure envelope namespace if provided
+            if (plan.getEnvelopeNamespace() != null) {
+                soapMessage.getEnvelope().addNamespaceDeclaration(plan.getEnvelopePrefix(), plan.getEnvelopeNamespace());
+            }
 
-        // Create and initialize the signature
-        Signature sig = Signature.getInstance(algorithm);
-        sig.initSign(privateKey);
-        sig.update(canonValue.getBytes(StandardCharsets.UTF_8));
+            // Configure body namespace if provided
+            if (plan.getBodyNamespace() != null) {
+                soapMessage.getEnvelope().getBody().addNamespaceDeclaration(plan.getBodyPrefix(), plan.getBodyNamespace());
+            }
 
-        // Generate the signature
-        return Base64.getEncoder().encodeToString(sig.sign());
+            // Add our custom security header if required
+            if (plan.isHeaderRequired()) {
+                addSecurityHeader(soapMessage, plan);
+            }
+        };
     }
 
-    private void addSecurityHeader(SoapMessage soapMessage, String serviceName) {
+    private void addSecurityHeader(SoapMessage soapMessage, RequestPlan plan) {
+        long start = System.nanoTime();
         try {
             SoapHeader header = soapMessage.getSoapHeader();
 
-            // Get current service config
-            SoapServiceConfig serviceConfig = serviceConfigs.get(serviceName);
-
-            // Create timestamp in GMT+00:00
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmm");
-            sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-            String timestamp = sdf.format(new Date());
-
-            // Get username and correlation from service config
-            String effectiveUsername = serviceConfig != null && serviceConfig.getUsername() != null ?
-                    serviceConfig.getUsername() : username;
-            String effectiveCorr = serviceConfig != null && serviceConfig.getCorrelation() != null ?
-                    serviceConfig.getCorrelation() : "_CORR_";
-
-            // Format the UserInfo string
-            String userInfoContent = String.format("USER=%s;CORR=%s;TIMESTAMP=%s",
-                    effectiveUsername,
-                    effectiveCorr,
-                    timestamp);
-
-            // Create Security element
-            QName securityQName = new QName(
-                    "http://schemas.xmlsoap.org/ws/2002/4/secext",
-                    "Security",
-                    "wsse"
-            );
-            SoapHeaderElement security = header.addHeaderElement(securityQName);
-
-            // Add DisableInclusivePrefixList
-            String disablePrefix =
-                    "<sunsp:DisableInclusivePrefixList xmlns:sunsp=\"htt://schemas.sun.com/2006/03/wss/client\"></sunsp:DisableInclusivePrefixList>";
-
-            // Create digest value
-            String digestValue = createDigest("SHA1", userInfoContent);
-
-            // Create SignedInfo section
-            String signedInfoString = String.format(
-                    "<ds:SignedInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" +
-                            "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>" +
-                            "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#rsa-sha1\"/>" +
-                            "<ds:Reference URI=\"#secinfo\">" +
-                            "<ds:DigestMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#sha1\"/>" +
-                            "<ds:DigestValue>%s</ds:DigestValue>" +
-                            "<ds:Transforms>" +
-                            "<ds:Transform Algorithm=\"http://www.w3.org/TR/1999/REC-xpath-19991116\">" +
-                            "<ds:XPath>//*[@id='secinfo']/child::*/text()</ds:XPath>" +
-                            "</ds:Transform>" +
-                            "</ds:Transforms>" +
-                            "</ds:Reference>" +
-                            "</ds:SignedInfo>",
-                    digestValue
-            );
-
-            // Canonicalize SignedInfo
-            String canonicalizedSignedInfo = canonicalize(signedInfoString);
-
-            // Create signature value
-            String signatureValue = createSignature("SHA1withRSA", canonicalizedSignedInfo);
-
-            // Create complete Signature section
-            String signatureSection = String.format(
-                    "<ds:Signature xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" +
-                            "%s" +
-                            "<ds:SignatureValue>%s</ds:SignatureValue>" +
-                            "<ds:KeyInfo>" +
-                            "<ds:KeyName>%s</ds:KeyName>" +
-                            "</ds:KeyInfo>" +
-                            "</ds:Signature>",
-                    signedInfoString,
-                    signatureValue,
-                    effectiveUsername
-            );
-
-            // Create UsernameToken section
-            String tokenXml = String.format(
-                    "<t:UsernameToken xmlns:t=\"http://schemas.xmlsoap.org/ws/2002/4/secext\" id=\"secinfo\">" +
-                            "<t:UserInfo>%s</t:UserInfo>" +
-                            "</t:UsernameToken>",
-                    userInfoContent
-            );
-
-            // Parse and add all sections to the security header
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-
-            // Add DisableInclusivePrefixList
-            Document disableDoc = builder.parse(new InputSource(new StringReader(disablePrefix)));
-            DOMSource securitySource = (DOMSource) security.getSource();
-            org.w3c.dom.Node securityNode = securitySource.getNode();
-            securityNode.appendChild(
-                    securityNode.getOwnerDocument().importNode(disableDoc.getDocumentElement(), true)
-            );
-
-            // Add Signature section
-            Document signatureDoc = builder.parse(new InputSource(new StringReader(signatureSection)));
-            securityNode.appendChild(
-                    securityNode.getOwnerDocument().importNode(signatureDoc.getDocumentElement(), true)
-            );
-
-            // Add UsernameToken section
-            Document tokenDoc = builder.parse(new InputSource(new StringReader(tokenXml)));
-            securityNode.appendChild(
-                    securityNode.getOwnerDocument().importNode(tokenDoc.getDocumentElement(), true)
-            );
+            // Signed once per (user, correlation, minute); normally already cached
+            SecurityHeader securityHeader = securityHeaderCache.get(plan.getHeaderUsername(), plan.getHeaderCorrelation());
+            securityHeaderWriter.write(header, securityHeader);
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to create security header", e);
+        } finally {
+            proxyMetrics.record(plan.getServiceName(), "sign", System.nanoTime() - start);
         }
     }
+
+    private interface PayloadExtraction {
+        Source extract(OperationPayloadExtractor extractor) throws XMLStreamException;
+    }
 }
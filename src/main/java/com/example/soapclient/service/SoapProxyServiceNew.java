@@ -1,395 +1,132 @@
 package com.example.soapclient.service;
 
-import com.example.soapclient.config.SoapServiceConfig;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import net.shibboleth.utilities.java.support.httpclient.HttpClientBuilder;
-import org.apache.http.HttpHost;
-import org.apache.http.client.HttpClient;
-import org.apache.xml.security.c14n.Canonicalizer;
+import com.example.soapclient.config.RequestPlan;
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.security.SecurityHeader;
+import com.example.soapclient.security.SecurityHeaderCache;
+import com.example.soapclient.security.SecurityHeaderWriter;
+import com.example.soapclient.xml.SourcePayload;
+import com.example.soapclient.xml.XmlFactories;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.ws.client.core.WebServiceMessageCallback;
-import org.springframework.ws.client.core.WebServiceTemplate;
-import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.soap.SoapHeader;
-import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapMessage;
-import org.springframework.ws.transport.WebServiceMessageSender;
-import org.springframework.ws.transport.http.HttpComponentsMessageSender;
-import org.springframework.xml.transform.StringSource;
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
+import org.springframework.ws.stream.StreamingWebServiceMessage;
 
-import javax.annotation.PostConstruct;
-import javax.xml.namespace.QName;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Source;
-import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.security.*;
-import java.text.SimpleDateFormat;
-import java.util.Base64;
-import java.util.Date;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Map;
-import java.util.TimeZone;
 
 @Service
 public class SoapProxyServiceNew {
     private static final Logger logger = LoggerFactory.getLogger(SoapProxyServiceNew.class);
 
-    @Value("${soap.services}")
-    private String servicesJson;
-
-    private Map<String, SoapServiceConfig> serviceConfigs;
-
-    @Value("${soap.service.username:test}")
-    private String username;
-
-    @Value("${soap.service.password:test123}")
-    private String password;
-
     @Autowired
-    private WebServiceTemplate webServiceTemplate;
-
-    @Value("${keystore.path}")
-    private String keystorePath;
+    private RequestPlanRegistry requestPlanRegistry;
 
-    @Value("${keystore.password}")
-    private String keystorePassword;
-
-    @Value("${keystore.alias}")
-    private String keystoreAlias;
-
-    @PostConstruct
-    public void init() {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            serviceConfigs = mapper.readValue(servicesJson, new TypeReference<Map<String, SoapServiceConfig>>() {});
+    @Autowired
+    private SecurityHeaderCache securityHeaderCache;
 
-            // Initialize XML Security
-            org.apache.xml.security.Init.init();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to initialize", e);
-        }
-    }
+    @Autowired
+    private SecurityHeaderWriter securityHeaderWriter;
 
     public String processSoapRequest(String serviceName, String xmlPayload, String soapAction, Map<String, String> headers) {
-        String response = null;
-        // Get the service configuration
-        SoapServiceConfig serviceConfig = serviceConfigs.get(serviceName);
-        if (serviceConfig == null) {
-            throw new IllegalArgumentException("Unknown service: " + serviceName);
-        }
+        // Get the service's compiled plan
+        RequestPlan plan = requestPlanRegistry.getPlan(serviceName);
 
         // Use provided soapAction or fall back to configured one
-        String effectiveSoapAction = soapAction != null ? soapAction : serviceConfig.getSoapAction();
-
-        logger.info("Service: {}, headerRequired: {}, soapAction: {}",
-            serviceName, serviceConfig.isHeaderRequired(), effectiveSoapAction);
-        logger.info("Original payload: {}", xmlPayload);
+        String effectiveSoapAction = plan.effectiveSoapAction(soapAction);
 
-        // Extract the content using configured tags
-        String startTag = serviceConfig.getStartTag() != null ? serviceConfig.getStartTag() : "<Add>";
-        String endTag = serviceConfig.getEndTag() != null ? serviceConfig.getEndTag() : "</Add>";
+        logger.debug("Service: {}, headerRequired: {}, soapAction: {}",
+            serviceName, plan.isHeaderRequired(), effectiveSoapAction);
+        logger.debug("Original payload: {}", xmlPayload);
 
-        String actualRequest;
-        int startIndex = xmlPayload.indexOf(startTag);
-        int endIndex = xmlPayload.indexOf(endTag) + endTag.length();
-
-        if (startIndex != -1 && endIndex != -1) {
-            actualRequest = xmlPayload.substring(startIndex, endIndex);
-            logger.info("Extracted content using tags {} and {}: {}", startTag, endTag, actualRequest);
-        } else {
-            throw new IllegalArgumentException(
-                String.format("Could not find content between tags %s and %s in payload", startTag, endTag));
+        // Operation element, moved into the configured request namespace by the plan's extractor
+        Source requestSource;
+        try {
+            requestSource = plan.getExtractor().extract(new StringReader(xmlPayload));
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed SOAP payload for service " + serviceName, e);
         }
 
-        // Extract just the content between tags
-        String tagContent = actualRequest.substring(
-            actualRequest.indexOf(">") + 1,
-            actualRequest.lastIndexOf("<")
-        ).trim();
-
-        // Get namespace configuration with defaults
-        String requestNamespace = serviceConfig.getRequestNamespace() != null ?
-            serviceConfig.getRequestNamespace() : "http://tempuri.org/";
-
-        // Create the request with configured namespace
-        String tagName = startTag.substring(1, startTag.length() - 1); // Remove < and > from startTag
-        String formattedRequest = String.format(
-            "<%s xmlns=\"%s\">%s</%s>",
-            tagName,
-            requestNamespace,
-            tagContent,
-            tagName
-        );
-
-        logger.info("Formatted request: {}", formattedRequest);
-
-        // Create source from the formatted request
-        Source requestSource = new StringSource(formattedRequest);
-
         // Prepare response writer
         StringWriter responseWriter = new StringWriter();
         StreamResult result = new StreamResult(responseWriter);
 
-        //Save default senders so we can restore later
-        WebServiceMessageSender[] defaultSenders = webServiceTemplate.getMessageSenders();
-
         try {
-            // Remove all interceptors to prevent WSS4J from adding its headers
-            webServiceTemplate.setInterceptors(new ClientInterceptor[]{});
-
-            // --- NEW: configure HTTP proxy if set in config ---
-            if (serviceConfig.isProxyEnabled()
-                    && serviceConfig.getProxyHost() != null
-                    && serviceConfig.getProxyPort() > 0) {
-
-                HttpComponentsMessageSender httpSender = new HttpComponentsMessageSender();
-                HttpHost proxy = new HttpHost(
-                        serviceConfig.getProxyHost(),
-                        serviceConfig.getProxyPort()
-                );
-                HttpClientBuilder builder = new HttpClientBuilder();
-                builder.setConnectionProxyHost(serviceConfig.getProxyHost());
-                builder.setConnectionProxyPort(serviceConfig.getProxyPort());
-                HttpClient client = builder.buildClient();
-
-                httpSender.setHttpClient(client);
-                webServiceTemplate.setMessageSender(httpSender);
-            }
-            // --- end proxy configuration ---
-
             // Create message callback with configurable envelope settings
             WebServiceMessageCallback messageCallback = message -> {
                 SoapMessage soapMessage = (SoapMessage) message;
 
                 // Always set SOAPAction if available
                 if (effectiveSoapAction != null && !effectiveSoapAction.isEmpty()) {
-                    logger.info("Setting SOAPAction: {}", effectiveSoapAction);
+                    logger.debug("Setting SOAPAction: {}", effectiveSoapAction);
                     soapMessage.setSoapAction(effectiveSoapAction);
                 }
 
                 // Configure envelope namespace if provided
-                if (serviceConfig.getEnvelopeNamespace() != null) {
-                    soapMessage.getEnvelope().addNamespaceDeclaration(
-                        serviceConfig.getEnvelopePrefix() != null ? serviceConfig.getEnvelopePrefix() : "soap",
-                        serviceConfig.getEnvelopeNamespace()
-                    );
+                if (plan.getEnvelopeNamespace() != null) {
+                    soapMessage.getEnvelope().addNamespaceDeclaration(plan.getEnvelopePrefix(), plan.getEnvelopeNamespace());
                 }
 
                 // Configure body namespace if provided
-                if (serviceConfig.getBodyNamespace() != null) {
-                    soapMessage.getEnvelope().getBody().addNamespaceDeclaration(
-                        serviceConfig.getBodyPrefix() != null ? serviceConfig.getBodyPrefix() : "soap",
-                        serviceConfig.getBodyNamespace()
-                    );
+                if (plan.getBodyNamespace() != null) {
+                    soapMessage.getEnvelope().getBody().addNamespaceDeclaration(plan.getBodyPrefix(), plan.getBodyNamespace());
                 }
 
                 // Add our custom security header if required
-                if (serviceConfig.isHeaderRequired()) {
-                    addSecurityHeader(soapMessage, serviceName);
+                if (plan.isHeaderRequired()) {
+                    addSecurityHeader(soapMessage, plan);
                 }
             };
 
-            // Send request to SOAP service
-            webServiceTemplate.sendSourceAndReceiveToResult(
-                serviceConfig.getUrl(),
-                requestSource,
-                messageCallback,
-                result
-            );
-
-            response = responseWriter.toString();
-            logger.debug("Received SOAP response: {}", response);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            // Reset interceptors to default state
-            webServiceTemplate.setMessageSenders(defaultSenders);
-            webServiceTemplate.setInterceptors(new ClientInterceptor[]{});
-        }
-        return response;
-    }
-
-    private String createDigest(String algorithm, String userInfoContent) throws Exception {
-        MessageDigest msgDigest = MessageDigest.getInstance(algorithm, "SUN");
-        msgDigest.update(userInfoContent.getBytes());
-        return Base64.getEncoder().encodeToString(msgDigest.digest());
-    }
-
-    private String canonicalize(String signedInfoString) throws Exception {
-        // Parse the SignedInfo XML
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new InputSource(new StringReader(signedInfoString)));
-
-        // Canonicalize the SignedInfo using ByteArrayOutputStream
-        Canonicalizer canonicalizer = Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        canonicalizer.canonicalizeSubtree(doc.getDocumentElement(), baos);
-        return baos.toString("UTF-8");
-    }
-
-    private String createSignature(String algorithm, String canonValue) throws Exception {
-        // Load the keystore from external path
-        KeyStore keystore = KeyStore.getInstance("JKS");
-
-        // Check if the path starts with "file:" or "classpath:"
-        String path = keystorePath;
-        if (path.startsWith("file:")) {
-            // Remove "file:" prefix and load from file system
-            path = path.substring(5);
-            try (FileInputStream fis = new FileInputStream(path)) {
-                keystore.load(fis, keystorePassword.toCharArray());
-            }
-        } else {
-            // Assume classpath resource
-            try (InputStream is = getClass().getResourceAsStream(path)) {
-                if (is == null) {
-                    throw new FileNotFoundException("Keystore file not found at: " + path);
+            // Send request to SOAP service through the plan's pooled template; payload and
+            // response are copied with this thread's transformer rather than a new one per call
+            plan.getWebServiceTemplate().sendAndReceive(
+                plan.getUrl(),
+                message -> {
+                    if (message instanceof StreamingWebServiceMessage) {
+                        ((StreamingWebServiceMessage) message).setStreamingPayload(
+                            new SourcePayload(plan.getOperation(), requestSource));
+                    } else {
+                        XmlFactories.transform(requestSource, message.getPayloadResult());
+                    }
+                    messageCallback.doWithMessage(message);
+                },
+                responseMessage -> {
+                    Source payload = responseMessage.getPayloadSource();
+                    if (payload != null) {
+                        XmlFactories.transform(payload, result);
+                    }
+                    return Boolean.TRUE;
                 }
-                keystore.load(is, keystorePassword.toCharArray());
-            }
-        }
-
-        // Get the private key
-        Key key = keystore.getKey(keystoreAlias, keystorePassword.toCharArray());
-        if (!(key instanceof PrivateKey)) {
-            throw new RuntimeException("The specified key alias '" + keystoreAlias + "' does not contain a private key");
+            );
+        } catch (RuntimeException e) {
+            logger.error("Error processing SOAP request for service {}", serviceName, e);
+            throw e;
         }
-        PrivateKey privateKey = (PrivateKey) key;
-
-        // Create and initialize the signature
-        Signature sig = Signature.getInstance(algorithm);
-        sig.initSign(privateKey);
-        sig.update(canonValue.getBytes(StandardCharsets.UTF_8));
 
-        // Generate the signature
-        return Base64.getEncoder().encodeToString(sig.sign());
+        String response = responseWriter.toString();
+        logger.debug("Received SOAP response: {}", response);
+        return response;
     }
 
-    private void addSecurityHeader(SoapMessage soapMessage, String serviceName) {
+    private void addSecurityHeader(SoapMessage soapMessage, RequestPlan plan) {
         try {
             SoapHeader header = soapMessage.getSoapHeader();
 
-            // Get current service config
-            SoapServiceConfig serviceConfig = serviceConfigs.get(serviceName);
-
-            // Create timestamp in GMT+00:00
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmm");
-            sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-            String timestamp = sdf.format(new Date());
-
-            // Get username and correlation from service config
-            String effectiveUsername = serviceConfig != null && serviceConfig.getUsername() != null ?
-                serviceConfig.getUsername() : username;
-            String effectiveCorr = serviceConfig != null && serviceConfig.getCorrelation() != null ?
-                serviceConfig.getCorrelation() : "_CORR_";
-
-            // Format the UserInfo string
-            String userInfoContent = String.format("USER=%s;CORR=%s;TIMESTAMP=%s",
-                effectiveUsername,
-                effectiveCorr,
-                timestamp);
-
-            // Create Security element
-            QName securityQName = new QName(
-                "http://schemas.xmlsoap.org/ws/2002/4/secext",
-                "Security",
-                "wsse"
-            );
-            SoapHeaderElement security = header.addHeaderElement(securityQName);
-
-            // Add DisableInclusivePrefixList
-            String disablePrefix =
-                "<sunsp:DisableInclusivePrefixList xmlns:sunsp=\"htt://schemas.sun.com/2006/03/wss/client\"></sunsp:DisableInclusivePrefixList>";
-
-            // Create digest value
-            String digestValue = createDigest("SHA1", userInfoContent);
-
-            // Create SignedInfo section
-            String signedInfoString = String.format(
-                "<ds:SignedInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" +
-                "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>" +
-                "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#rsa-sha1\"/>" +
-                "<ds:Reference URI=\"#secinfo\">" +
-                "<ds:DigestMethod Algorithm=\"http://www.w3.org/2000/09/xmldsig#sha1\"/>" +
-                "<ds:DigestValue>%s</ds:DigestValue>" +
-                "<ds:Transforms>" +
-                "<ds:Transform Algorithm=\"http://www.w3.org/TR/1999/REC-xpath-19991116\">" +
-                "<ds:XPath>//*[@id='secinfo']/child::*/text()</ds:XPath>" +
-                "</ds:Transform>" +
-                "</ds:Transforms>" +
-                "</ds:Reference>" +
-                "</ds:SignedInfo>",
-                digestValue
-            );
-
-            // Canonicalize SignedInfo
-            String canonicalizedSignedInfo = canonicalize(signedInfoString);
-
-            // Create signature value
-            String signatureValue = createSignature("SHA1withRSA", canonicalizedSignedInfo);
-
-            // Create complete Signature section
-            String signatureSection = String.format(
-                "<ds:Signature xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" +
-                "%s" +
-                "<ds:SignatureValue>%s</ds:SignatureValue>" +
-                "<ds:KeyInfo>" +
-                "<ds:KeyName>%s</ds:KeyName>" +
-                "</ds:KeyInfo>" +
-                "</ds:Signature>",
-                signedInfoString,
-                signatureValue,
-                effectiveUsername
-            );
-
-            // Create UsernameToken section
-            String tokenXml = String.format(
-                "<t:UsernameToken xmlns:t=\"http://schemas.xmlsoap.org/ws/2002/4/secext\" id=\"secinfo\">" +
-                "<t:UserInfo>%s</t:UserInfo>" +
-                "</t:UsernameToken>",
-                userInfoContent
-            );
-
-            // Parse and add all sections to the security header
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-
-            // Add DisableInclusivePrefixList
-            Document disableDoc = builder.parse(new InputSource(new StringReader(disablePrefix)));
-            DOMSource securitySource = (DOMSource) security.getSource();
-            org.w3c.dom.Node securityNode = securitySource.getNode();
-            securityNode.appendChild(
-                securityNode.getOwnerDocument().importNode(disableDoc.getDocumentElement(), true)
-            );
-
-            // Add Signature section
-            Document signatureDoc = builder.parse(new InputSource(new StringReader(signatureSection)));
-            securityNode.appendChild(
-                securityNode.getOwnerDocument().importNode(signatureDoc.getDocumentElement(), true)
-            );
-
-            // Add UsernameToken section
-            Document tokenDoc = builder.parse(new InputSource(new StringReader(tokenXml)));
-            securityNode.appendChild(
-                securityNode.getOwnerDocument().importNode(tokenDoc.getDocumentElement(), true)
-            );
+            // Signed once per (user, correlation, minute); normally already cached
+            SecurityHeader securityHeader = securityHeaderCache.get(plan.getHeaderUsername(), plan.getHeaderCorrelation());
+            securityHeaderWriter.write(header, securityHeader);
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to create security header", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package com.example.soapclient.warmup;
+
+import com.example.soapclient.config.HttpClientFactory;
+import com.example.soapclient.config.RequestPlan;
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.security.SecurityHeaderSigner;
+import com.example.soapclient.service.SoapProxyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.WebServiceMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Optional startup phase (soap.warmup.enabled) that runs before the instance reports
+// ready: pooled connections are opened for every service, the signing key is loaded
+// and synthetic requests are built and signed until the JIT has compiled the hot paths.
+// Spring Boot only moves readiness to ACCEPTING_TRAFFIC once every ApplicationRunner
+// has returned, so /actuator/health/readiness keeps the instance out of the load
+// balancer until this is done. Failures are logged and never stop the application.
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    @Value("${soap.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${soap.warmup.connections:2}")
+    private int connections;
+
+    @Value("${soap.warmup.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${soap.warmup.iterations:200}")
+    private int iterations;
+
+    @Autowired
+    private RequestPlanRegistry requestPlanRegistry;
+
+    @Autowired
+    private HttpClientFactory httpClientFactory;
+
+    @Autowired
+    private SoapProxyService soapProxyService;
+
+    @Autowired
+    private SecurityHeaderSigner securityHeaderSigner;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.nanoTime();
+
+        Set<List<String>> identities = new LinkedHashSet<>();
+        for (String serviceName : requestPlanRegistry.getServiceConfigs().keySet()) {
+            RequestPlan plan = requestPlanRegistry.getPlan(serviceName);
+            if (!preconnect(plan)) {
+                return;
+            }
+            buildRequests(plan);
+            if (plan.isHeaderRequired()) {
+                identities.add(Arrays.asList(plan.getHeaderUsername(), plan.getHeaderCorrelation()));
+            }
+        }
+        signHeaders(identities);
+
+        logger.info("Warm-up finished in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    // Returns false only when interrupted, i.e. the application is shutting down
+    private boolean preconnect(RequestPlan plan) {
+        Integer override = plan.getConfig().getWarmupConnections();
+        int count = override != null ? override : connections;
+        if (count <= 0) {
+            return true;
+        }
+        try {
+            int opened = httpClientFactory.preconnect(plan.getServiceName(), plan.getConfig(), plan.getMessageSender(),
+                    count, connectTimeoutMs);
+            logger.info("Opened {} connections for service {}", opened, plan.getServiceName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.warn("Could not pre-open connections for service {}: {}", plan.getServiceName(), e.toString());
+        }
+        return true;
+    }
+
+    // Extraction, envelope building, header writing and serialization, without sending
+    private void buildRequests(RequestPlan plan) {
+        String operation = plan.getExtractor().getOperationName();
+        byte[] payload = ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<" + operation + "><a>1</a><b>2</b></" + operation + ">"
+                + "</soap:Body></soap:Envelope>").getBytes(StandardCharsets.UTF_8);
+        try {
+            for (int i = 0; i < iterations; i++) {
+                WebServiceMessage message = soapProxyService.createRequestMessage(
+                        plan.getServiceName(), new ByteArrayInputStream(payload), null);
+                message.writeTo(new ByteArrayOutputStream());
+            }
+        } catch (Exception e) {
+            logger.warn("Request warm-up failed for service {}: {}", plan.getServiceName(), e.toString());
+        }
+    }
+
+    // Signs directly, bypassing SecurityHeaderCache, so every iteration does the
+    // canonicalization and RSA work; the first one loads the signing key
+    private void signHeaders(Set<List<String>> identities) {
+        long bucket = SecurityHeaderSigner.currentMinuteBucket();
+        for (List<String> identity : identities) {
+            try {
+                for (int i = 0; i < iterations; i++) {
+                    securityHeaderSigner.sign(identity.get(0), identity.get(1), bucket);
+                }
+            } catch (Exception e) {
+                logger.warn("Signing warm-up failed for user {}: {}", identity.get(0), e.toString());
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.soapclient.xml;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// XMLEventReader over a single element subtree of another reader. Elements in the
+// subtree root's namespace are moved into the target namespace as the default
+// namespace; everything else keeps its name, and any prefix bound outside the subtree
+// is re-declared where it is first used so the fragment stands on its own.
+// Not thread-safe; each extracted payload gets its own reader.
+class NamespaceRewritingEventReader implements XMLEventReader {
+
+    private static final ThreadLocal<XMLEventFactory> EVENT_FACTORY =
+            ThreadLocal.withInitial(XMLEventFactory::newInstance);
+
+    private final XMLEventReader source;
+    private final XMLEventFactory eventFactory = EVENT_FACTORY.get();
+    private final String originalNamespace;
+    private final String targetNamespace;
+
+    // Prefix bindings declared in the rewritten output for the innermost open element
+    private Scope scope;
+
+    private StartElement root;
+    private XMLEvent next;
+    private int depth;
+
+    NamespaceRewritingEventReader(XMLEventReader source, StartElement root, String targetNamespace) {
+        this.source = source;
+        this.originalNamespace = root.getName().getNamespaceURI();
+        this.targetNamespace = targetNamespace;
+        this.root = root;
+        // Presented as a standalone document so any Transformer can consume it;
+        // StAXSource insists on a location for the first event
+        eventFactory.setLocation(root.getLocation());
+        this.next = eventFactory.createStartDocument();
+        eventFactory.setLocation(null);
+    }
+
+    @Override
+    public XMLEvent nextEvent() throws XMLStreamException {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        XMLEvent current = next;
+        if (root != null) {
+            next = rewrite(root);
+            root = null;
+        } else if (depth > 0) {
+            next = advance();
+        } else {
+            next = current.isEndDocument() ? null : eventFactory.createEndDocument();
+        }
+        return current;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public XMLEvent peek() {
+        return next;
+    }
+
+    @Override
+    public Object next() {
+        try {
+            return nextEvent();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (hasNext() && !peek().isEndElement()) {
+            XMLEvent event = nextEvent();
+            if (event.isCharacters()) {
+                text.append(event.asCharacters().getData());
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public XMLEvent nextTag() throws XMLStreamException {
+        while (hasNext()) {
+            XMLEvent event = nextEvent();
+            if (event.isStartElement() || event.isEndElement()) {
+                return event;
+            }
+            if (event.isCharacters() && !event.asCharacters().isWhiteSpace()) {
+                throw new XMLStreamException("Unexpected non-whitespace text while looking for a tag");
+            }
+        }
+        throw new XMLStreamException("No more tags");
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return source.getProperty(name);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        source.close();
+    }
+
+    private XMLEvent advance() throws XMLStreamException {
+        while (source.hasNext()) {
+            XMLEvent event = source.nextEvent();
+            if (event.isStartElement()) {
+                return rewrite(event.asStartElement());
+            }
+            if (event.isEndElement()) {
+                return rewrite(event.asEndElement());
+            }
+            if (!event.isStartDocument() && !event.isEndDocument()) {
+                return event;
+            }
+        }
+        throw new XMLStreamException("Payload ended inside the operation element");
+    }
+
+    private StartElement rewrite(StartElement element) {
+        depth++;
+        scope = new Scope(scope);
+        List<Namespace> namespaces = new ArrayList<>();
+
+        // Keep prefixed declarations; the default namespace is managed below
+        for (Iterator<?> it = element.getNamespaces(); it.hasNext(); ) {
+            Namespace namespace = (Namespace) it.next();
+            if (!namespace.isDefaultNamespaceDeclaration()) {
+                scope.bindings.put(namespace.getPrefix(), namespace.getNamespaceURI());
+                namespaces.add(namespace);
+            }
+        }
+
+        QName name = rewrite(element.getName());
+        declareIfNeeded(name.getPrefix(), name.getNamespaceURI(), namespaces);
+
+        List<Attribute> attributes = new ArrayList<>();
+        for (Iterator<?> it = element.getAttributes(); it.hasNext(); ) {
+            Attribute attribute = (Attribute) it.next();
+            QName attributeName = attribute.getName();
+            if (!attributeName.getPrefix().isEmpty()) {
+                declareIfNeeded(attributeName.getPrefix(), attributeName.getNamespaceURI(), namespaces);
+            }
+            attributes.add(attribute);
+        }
+
+        // The scope doubles as the event's NamespaceContext; consumers resolve prefixes through it
+        return eventFactory.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+                attributes.iterator(), namespaces.iterator(), scope);
+    }
+
+    private EndElement rewrite(EndElement element) {
+        depth--;
+        scope = scope.parent;
+        return eventFactory.createEndElement(rewrite(element.getName()), null);
+    }
+
+    private QName rewrite(QName name) {
+        if (name.getNamespaceURI().equals(originalNamespace)) {
+            return new QName(targetNamespace, name.getLocalPart());
+        }
+        return name;
+    }
+
+    private void declareIfNeeded(String prefix, String namespaceUri, List<Namespace> namespaces) {
+        if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+            return;
+        }
+        if (!namespaceUri.equals(scope.getNamespaceURI(prefix))) {
+            scope.bindings.put(prefix, namespaceUri);
+            namespaces.add(prefix.isEmpty()
+                    ? eventFactory.createNamespace(namespaceUri)
+                    : eventFactory.createNamespace(prefix, namespaceUri));
+        }
+    }
+
+    // Immutable once its element has been emitted, so events handed out earlier keep
+    // resolving correctly while the reader moves on
+    private static final class Scope implements NamespaceContext {
+        private final Scope parent;
+        private final Map<String, String> bindings = new HashMap<>(4);
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public String getNamespaceURI(String prefix) {
+            for (Scope current = this; current != null; current = current.parent) {
+                String namespaceUri = current.bindings.get(prefix);
+                if (namespaceUri != null) {
+                    return namespaceUri;
+                }
+            }
+            if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+                return XMLConstants.XML_NS_URI;
+            }
+            // Nothing declared: the fragment starts with no default namespace
+            return prefix.isEmpty() ? XMLConstants.NULL_NS_URI : null;
+        }
+
+        @Override
+        public String getPrefix(String namespaceUri) {
+            for (Scope current = this; current != null; current = current.parent) {
+                for (Map.Entry<String, String> binding : current.bindings.entrySet()) {
+                    if (binding.getValue().equals(namespaceUri)
+                            && namespaceUri.equals(getNamespaceURI(binding.getKey()))) {
+                        return binding.getKey();
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(String namespaceUri) {
+            String prefix = getPrefix(namespaceUri);
+            return prefix != null
+                    ? Collections.singletonList(prefix).iterator()
+                    : Collections.<String>emptyIterator();
+        }
+    }
+}
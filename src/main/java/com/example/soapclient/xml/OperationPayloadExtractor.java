@@ -0,0 +1,63 @@
+package com.example.soapclient.xml;
+
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
+import java.io.InputStream;
+import java.io.Reader;
+
+// Locates the operation element (e.g. <Add>) in an incoming SOAP payload and exposes
+// it, moved into the configured request namespace, as a streaming Source. The payload
+// is read in a single StAX pass; nothing before the operation element is kept and the
+// element itself is only pulled from the input while the Source is being consumed.
+public class OperationPayloadExtractor {
+
+    private final String startTag;
+    private final String endTag;
+    private final String operationName;
+    private final String requestNamespace;
+
+    public OperationPayloadExtractor(String startTag, String endTag, String requestNamespace) {
+        this.startTag = startTag;
+        this.endTag = endTag;
+        // Remove < and > from startTag
+        this.operationName = startTag.substring(1, startTag.length() - 1).trim();
+        this.requestNamespace = requestNamespace;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public String getRequestNamespace() {
+        return requestNamespace;
+    }
+
+    public Source extract(InputStream payload) throws XMLStreamException {
+        return extract(XmlFactories.inputFactory().createXMLEventReader(payload));
+    }
+
+    public Source extract(Reader payload) throws XMLStreamException {
+        return extract(XmlFactories.inputFactory().createXMLEventReader(payload));
+    }
+
+    // Advances the reader to the operation element before returning, so a missing
+    // operation is reported here rather than half-way through writing the message
+    private Source extract(XMLEventReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                StartElement element = event.asStartElement();
+                if (operationName.equals(element.getName().getLocalPart())) {
+                    return new StAXSource(new NamespaceRewritingEventReader(reader, element, requestNamespace));
+                }
+            }
+        }
+        throw new IllegalArgumentException(
+                String.format("Could not find content between tags %s and %s in payload", startTag, endTag));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.soapclient.xml;
+
+import org.springframework.ws.stream.StreamingPayload;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.ProcessingInstruction;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.transform.stream.StreamSource;
+import java.util.Iterator;
+
+// Request payload for streaming (AXIOM) messages. The message only calls writeTo while
+// it is being serialized onto the connection, so the operation element goes from the
+// source to the wire event by event without ever being built into a tree. The source
+// can be consumed once.
+public class SourcePayload implements StreamingPayload {
+
+    private final QName name;
+    private final Source source;
+
+    public SourcePayload(QName name, Source source) {
+        this.name = name;
+        this.source = source;
+    }
+
+    @Override
+    public QName getName() {
+        return name;
+    }
+
+    @Override
+    public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+        XMLEventReader reader = eventReader(source);
+        try {
+            while (reader.hasNext()) {
+                write(reader.nextEvent(), writer);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    // Document-level events are dropped: the payload is written into an open body element
+    private static void write(XMLEvent event, XMLStreamWriter writer) throws XMLStreamException {
+        switch (event.getEventType()) {
+            case XMLEvent.START_ELEMENT:
+                writeStartElement(event.asStartElement(), writer);
+                break;
+            case XMLEvent.END_ELEMENT:
+                writer.writeEndElement();
+                break;
+            case XMLEvent.CHARACTERS:
+            case XMLEvent.SPACE:
+                writer.writeCharacters(event.asCharacters().getData());
+                break;
+            case XMLEvent.CDATA:
+                writer.writeCData(((Characters) event).getData());
+                break;
+            case XMLEvent.COMMENT:
+                writer.writeComment(((Comment) event).getText());
+                break;
+            case XMLEvent.PROCESSING_INSTRUCTION:
+                ProcessingInstruction instruction = (ProcessingInstruction) event;
+                writer.writeProcessingInstruction(instruction.getTarget(), instruction.getData());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeStartElement(StartElement element, XMLStreamWriter writer) throws XMLStreamException {
+        QName elementName = element.getName();
+        writer.writeStartElement(elementName.getPrefix(), elementName.getLocalPart(), elementName.getNamespaceURI());
+        for (Iterator<?> it = element.getNamespaces(); it.hasNext(); ) {
+            Namespace namespace = (Namespace) it.next();
+            if (namespace.isDefaultNamespaceDeclaration()) {
+                writer.writeDefaultNamespace(namespace.getNamespaceURI());
+            } else {
+                writer.writeNamespace(namespace.getPrefix(), namespace.getNamespaceURI());
+            }
+        }
+        for (Iterator<?> it = element.getAttributes(); it.hasNext(); ) {
+            Attribute attribute = (Attribute) it.next();
+            QName attributeName = attribute.getName();
+            writer.writeAttribute(attributeName.getPrefix(), attributeName.getNamespaceURI(),
+                    attributeName.getLocalPart(), attribute.getValue());
+        }
+    }
+
+    private static XMLEventReader eventReader(Source source) throws XMLStreamException {
+        if (source instanceof StAXSource) {
+            StAXSource staxSource = (StAXSource) source;
+            return staxSource.getXMLEventReader() != null ? staxSource.getXMLEventReader()
+                    : XmlFactories.inputFactory().createXMLEventReader(staxSource.getXMLStreamReader());
+        }
+        if (source instanceof StreamSource) {
+            return XmlFactories.inputFactory().createXMLEventReader(source);
+        }
+        throw new IllegalArgumentException("Unsupported payload source: " + source.getClass().getName());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.soapclient.xml;
+
+import org.springframework.util.xml.StaxUtils;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import java.io.StringReader;
+
+// Shared XML parser and transformer instances. The factories are looked up (service
+// discovery on the classpath) and locked down once: no DOCTYPEs, external entities or
+// external DTD/stylesheet access. DocumentBuilder, Transformer and XMLInputFactory are
+// not guaranteed to be thread-safe, so each thread keeps its own and resets it before
+// handing it out. Nothing here is reentrant: don't start a transform from inside the
+// Source or Result of another one on the same thread.
+public final class XmlFactories {
+
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = createDocumentBuilderFactory();
+
+    private static final TransformerFactory TRANSFORMER_FACTORY = createTransformerFactory();
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS =
+            ThreadLocal.withInitial(XmlFactories::newDocumentBuilder);
+
+    private static final ThreadLocal<Transformer> TRANSFORMERS =
+            ThreadLocal.withInitial(XmlFactories::newTransformer);
+
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORIES =
+            ThreadLocal.withInitial(StaxUtils::createDefensiveInputFactory);
+
+    private XmlFactories() {
+    }
+
+    // Namespace-aware builder for this thread
+    public static DocumentBuilder documentBuilder() {
+        DocumentBuilder builder = DOCUMENT_BUILDERS.get();
+        builder.reset();
+        return builder;
+    }
+
+    public static Document parse(String xml) throws Exception {
+        return documentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    // Identity transformer for this thread
+    public static Transformer transformer() {
+        Transformer transformer = TRANSFORMERS.get();
+        transformer.reset();
+        return transformer;
+    }
+
+    public static void transform(Source source, Result result) throws TransformerException {
+        transformer().transform(source, result);
+    }
+
+    // Coalescing, no DTDs and no external entities (StaxUtils' defensive settings)
+    public static XMLInputFactory inputFactory() {
+        return INPUT_FACTORIES.get();
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Failed to configure DocumentBuilderFactory", e);
+        }
+        return factory;
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("Failed to configure TransformerFactory", e);
+        }
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        return factory;
+    }
+
+    // Neither factory is required to be thread-safe, and the per-thread instances
+    // are created concurrently
+    private static DocumentBuilder newDocumentBuilder() {
+        synchronized (DOCUMENT_BUILDER_FACTORY) {
+            try {
+                return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("Failed to create DocumentBuilder", e);
+            }
+        }
+    }
+
+    private static Transformer newTransformer() {
+        synchronized (TRANSFORMER_FACTORY) {
+            try {
+                return TRANSFORMER_FACTORY.newTransformer();
+            } catch (TransformerConfigurationException e) {
+                throw new IllegalStateException("Failed to create Transformer", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.soapclient.config;
+
+import com.example.soapclient.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkheadExecutorRegistryTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BulkheadExecutorRegistry registry;
+
+    private Map<String, SoapServiceConfig> configs;
+
+    @BeforeEach
+    void setUp() {
+        configs = Collections.singletonMap("calculator", service(1));
+        RequestPlanRegistry requestPlanRegistry = mock(RequestPlanRegistry.class);
+        when(requestPlanRegistry.getServiceConfigs()).thenReturn(configs);
+
+        registry = new BulkheadExecutorRegistry();
+        ReflectionTestUtils.setField(registry, "requestPlanRegistry", requestPlanRegistry);
+        ReflectionTestUtils.setField(registry, "keepAliveMs", 60_000L);
+        registry.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        registry.shutdown();
+    }
+
+    @Test
+    void rejectsOnceThreadsAndQueueAreFull() {
+        registry.submit("calculator", this::blockUntilReleased);
+        registry.submit("calculator", this::blockUntilReleased);
+
+        assertThatThrownBy(() -> registry.submit("calculator", () -> "third"))
+                .isInstanceOf(ServiceBusyException.class);
+    }
+
+    @Test
+    void rejectsUnknownServices() {
+        assertThatThrownBy(() -> registry.submit("nosuch", () -> "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reloadedServiceGetsANewExecutorAndTheOldOneFinishesItsTasks() throws Exception {
+        CompletableFuture<String> accepted = registry.submit("calculator", this::blockUntilReleased);
+        registry.submit("calculator", this::blockUntilReleased);
+
+        Map<String, SoapServiceConfig> reloaded = Collections.singletonMap("calculator", service(2));
+        registry.onServicesReloaded(new ServicesReloadedEvent(this, configs, reloaded));
+
+        CompletableFuture<String> afterReload = registry.submit("calculator", () -> "new");
+        assertThat(afterReload.get(5, TimeUnit.SECONDS)).isEqualTo("new");
+        release.countDown();
+        assertThat(accepted.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    // The submit looked the executor up just before a reload retired it
+    @Test
+    void retriesOnTheReplacementWhenTheExecutorWasRetired() throws Exception {
+        ThreadPoolExecutor retired = currentExecutors().get("calculator");
+        retired.shutdown();
+        ThreadPoolExecutor replacement = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        ConcurrentHashMap<String, ThreadPoolExecutor> racing = new ConcurrentHashMap<String, ThreadPoolExecutor>() {
+            private boolean first = true;
+
+            @Override
+            public ThreadPoolExecutor get(Object key) {
+                if (first) {
+                    first = false;
+                    return retired;
+                }
+                return replacement;
+            }
+        };
+        ReflectionTestUtils.setField(registry, "executors", racing);
+        try {
+            assertThat(registry.submit("calculator", () -> "ok").get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        } finally {
+            replacement.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ThreadPoolExecutor> currentExecutors() {
+        return (Map<String, ThreadPoolExecutor>) ReflectionTestUtils.getField(registry, "executors");
+    }
+
+    private String blockUntilReleased() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static SoapServiceConfig service(int threads) {
+        SoapServiceConfig config = new SoapServiceConfig();
+        config.setBulkheadThreads(threads);
+        config.setBulkheadQueueCapacity(1);
+        return config;
+    }
+}
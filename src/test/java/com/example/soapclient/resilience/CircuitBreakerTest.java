@@ -0,0 +1,128 @@
+package com.example.soapclient.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static com.example.soapclient.resilience.CircuitBreaker.State.CLOSED;
+import static com.example.soapclient.resilience.CircuitBreaker.State.HALF_OPEN;
+import static com.example.soapclient.resilience.CircuitBreaker.State.OPEN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = 1_000;
+
+    // Window of 4 calls, opens at 50% bad, 2 probes
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 50, OPEN_NANOS, 2);
+
+    @Test
+    void staysClosedUntilTheWindowIsFull() {
+        record(true, 0);
+        record(true, 0);
+        record(true, 0);
+
+        assertThat(breaker.getState()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        trip(0);
+
+        assertThat(breaker.getState()).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire(OPEN_NANOS - 1)).isNull();
+    }
+
+    @Test
+    void staysClosedBelowTheThreshold() {
+        record(true, 0);
+        record(false, 0);
+        record(false, 0);
+        record(false, 0);
+        // The oldest (bad) outcome leaves the window
+        record(true, 0);
+        record(false, 0);
+
+        assertThat(breaker.getState()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void admitsOnlyTheConfiguredProbesOnceTheOpenPeriodEnds() {
+        trip(0);
+
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isEqualTo(HALF_OPEN);
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isEqualTo(HALF_OPEN);
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isNull();
+        assertThat(breaker.getState()).isEqualTo(HALF_OPEN);
+    }
+
+    @Test
+    void closesWithAFreshWindowWhenAllProbesSucceed() {
+        trip(0);
+        CircuitBreaker.State first = breaker.tryAcquire(OPEN_NANOS);
+        CircuitBreaker.State second = breaker.tryAcquire(OPEN_NANOS);
+
+        breaker.onResult(first, false, OPEN_NANOS);
+        assertThat(breaker.getState()).isEqualTo(HALF_OPEN);
+        breaker.onResult(second, false, OPEN_NANOS);
+        assertThat(breaker.getState()).isEqualTo(CLOSED);
+
+        // The failures that opened the circuit are forgotten
+        record(true, OPEN_NANOS);
+        record(false, OPEN_NANOS);
+        record(false, OPEN_NANOS);
+        assertThat(breaker.getState()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void reopensOnABadProbeAndRestartsTheOpenPeriod() {
+        trip(0);
+        CircuitBreaker.State first = breaker.tryAcquire(OPEN_NANOS);
+        CircuitBreaker.State second = breaker.tryAcquire(OPEN_NANOS);
+
+        breaker.onResult(first, true, 1_500);
+        assertThat(breaker.getState()).isEqualTo(OPEN);
+        assertThat(breaker.tryAcquire(1_500 + OPEN_NANOS - 1)).isNull();
+
+        // The other probe finishing late changes nothing
+        breaker.onResult(second, false, 1_600);
+        assertThat(breaker.getState()).isEqualTo(OPEN);
+
+        assertThat(breaker.tryAcquire(1_500 + OPEN_NANOS)).isEqualTo(HALF_OPEN);
+    }
+
+    @Test
+    void ignoresCallsAdmittedBeforeTheCircuitOpened() {
+        CircuitBreaker.State straggler = breaker.tryAcquire(0);
+        trip(0);
+        CircuitBreaker.State probe = breaker.tryAcquire(OPEN_NANOS);
+
+        breaker.onResult(straggler, true, OPEN_NANOS);
+        assertThat(breaker.getState()).isEqualTo(HALF_OPEN);
+
+        breaker.onResult(probe, false, OPEN_NANOS);
+        breaker.onResult(breaker.tryAcquire(OPEN_NANOS), false, OPEN_NANOS);
+        assertThat(breaker.getState()).isEqualTo(CLOSED);
+    }
+
+    @Test
+    void cancelledProbeFreesItsSlot() {
+        trip(0);
+        CircuitBreaker.State first = breaker.tryAcquire(OPEN_NANOS);
+        breaker.tryAcquire(OPEN_NANOS);
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isNull();
+
+        breaker.cancel(first);
+
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isEqualTo(HALF_OPEN);
+        assertThat(breaker.getState()).isEqualTo(HALF_OPEN);
+    }
+
+    private void trip(long now) {
+        for (int i = 0; i < 4; i++) {
+            record(i % 2 == 0, now);
+        }
+    }
+
+    private void record(boolean bad, long now) {
+        breaker.onResult(breaker.tryAcquire(now), bad, now);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.soapclient.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void startsAtTheCeiling() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 50, 0.5);
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(50);
+    }
+
+    @Test
+    void goodCallsNeverPushPastTheCeiling() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 4, 0.5);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.onResult(false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void droppedCallsShrinkTheLimitDownToTheFloor() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 16, 0.5);
+
+        limiter.tryAcquire();
+        limiter.onResult(true);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.onResult(true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void growsBackOnlyWhileTheLimitIsUsed() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16, 0.5);
+        limiter.tryAcquire();
+        limiter.onResult(true);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        // One call at a time is far below the limit and teaches nothing
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.onResult(false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        // With half the limit in flight each good call adds one
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        limiter.onResult(false);
+        limiter.onResult(false);
+        assertThat(limiter.getLimit()).isEqualTo(9);
+    }
+
+    @Test
+    void cancelGivesBackTheSlotWithoutChangingTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.cancel();
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.soapclient.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestBudgetTest {
+
+    @Test
+    void startsFullAndRefusesWhenEmpty() {
+        RequestBudget budget = new RequestBudget(0.5, 2);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    void refillsAtTheConfiguredRatio() {
+        RequestBudget budget = new RequestBudget(0.5, 2);
+        budget.tryWithdraw();
+        budget.tryWithdraw();
+
+        budget.deposit();
+        assertThat(budget.tryWithdraw()).isFalse();
+        budget.deposit();
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+
+    @Test
+    void savesUpNoMoreThanMaxTokens() {
+        RequestBudget budget = new RequestBudget(0.5, 2);
+
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.getTokens()).isEqualTo(2.0);
+    }
+}
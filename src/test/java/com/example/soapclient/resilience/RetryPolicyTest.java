@@ -0,0 +1,111 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.exception.ServiceBusyException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RetryPolicyTest {
+
+    private static final Set<Integer> STATUSES = Collections.singleton(503);
+
+    private final RetryPolicy idempotent = policy(true, Collections.<String>emptySet(), Collections.<String>emptySet());
+
+    private final RetryPolicy nonIdempotent = policy(false, Collections.<String>emptySet(), Collections.<String>emptySet());
+
+    @Test
+    void retriesRequestsThatNeverReachedTheBackend() {
+        for (RetryPolicy policy : asList(idempotent, nonIdempotent)) {
+            assertThat(policy.isRetryable(io(new ConnectException("Connection refused")))).isTrue();
+            assertThat(policy.isRetryable(io(new ConnectTimeoutException("connect timed out")))).isTrue();
+        }
+    }
+
+    @Test
+    void retriesOtherIoErrorsOnlyForIdempotentServices() {
+        assertThat(idempotent.isRetryable(io(new SocketException("Connection reset")))).isTrue();
+        assertThat(idempotent.isRetryable(io(new NoHttpResponseException("failed to respond")))).isTrue();
+
+        assertThat(nonIdempotent.isRetryable(io(new SocketException("Connection reset")))).isFalse();
+        assertThat(nonIdempotent.isRetryable(io(new NoHttpResponseException("failed to respond")))).isFalse();
+    }
+
+    // The backend may still be processing the request
+    @Test
+    void neverRetriesReadTimeouts() {
+        assertThat(idempotent.isRetryable(io(new SocketTimeoutException("Read timed out")))).isFalse();
+        assertThat(nonIdempotent.isRetryable(io(new SocketTimeoutException("Read timed out")))).isFalse();
+    }
+
+    @Test
+    void retriesConfiguredStatusesOnly() {
+        for (RetryPolicy policy : asList(idempotent, nonIdempotent)) {
+            assertThat(policy.isRetryable(new WebServiceTransportException("Service Unavailable [503]"))).isTrue();
+            assertThat(policy.isRetryable(new WebServiceTransportException("Internal Server Error [500]"))).isFalse();
+        }
+    }
+
+    @Test
+    void retriesConfiguredFaultCodesOnly() {
+        RetryPolicy policy = policy(false, Collections.singleton("Server"), Collections.<String>emptySet());
+
+        assertThat(policy.isRetryable(fault("Server"))).isTrue();
+        assertThat(policy.isRetryable(fault("Client"))).isFalse();
+        assertThat(idempotent.isRetryable(fault("Server"))).isFalse();
+    }
+
+    @Test
+    void retriesConfiguredExceptionsBySimpleOrFullName() {
+        RetryPolicy bySimpleName = policy(false, Collections.<String>emptySet(),
+                Collections.singleton("SocketException"));
+        RetryPolicy byFullName = policy(false, Collections.<String>emptySet(),
+                Collections.singleton("java.net.SocketException"));
+
+        assertThat(bySimpleName.isRetryable(io(new SocketException("Connection reset")))).isTrue();
+        assertThat(byFullName.isRetryable(io(new SocketException("Connection reset")))).isTrue();
+        assertThat(bySimpleName.isRetryable(new IllegalStateException())).isFalse();
+    }
+
+    @Test
+    void neverRetriesRequestsShedLocally() {
+        RuntimeException busy = new RuntimeException(new ServiceBusyException("calculator"));
+
+        assertThat(idempotent.isRetryable(busy)).isFalse();
+        assertThat(policy(true, Collections.<String>emptySet(), Collections.singleton("RuntimeException"))
+                .isRetryable(new ServiceBusyException("calculator"))).isFalse();
+    }
+
+    private static RetryPolicy policy(boolean idempotent, Set<String> faultCodes, Set<String> exceptions) {
+        return new RetryPolicy(3, idempotent, STATUSES, new HashSet<>(faultCodes), new HashSet<>(exceptions));
+    }
+
+    private static WebServiceIOException io(IOException cause) {
+        return new WebServiceIOException("I/O error: " + cause.getMessage(), cause);
+    }
+
+    private static SoapFaultClientException fault(String code) {
+        SoapMessage message = mock(SoapMessage.class, RETURNS_DEEP_STUBS);
+        when(message.getSoapBody().getFault().getFaultCode())
+                .thenReturn(new QName("http://schemas.xmlsoap.org/soap/envelope/", code));
+        return new SoapFaultClientException(message);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.soapclient.resilience;
+
+import com.example.soapclient.config.RequestPlanRegistry;
+import com.example.soapclient.config.SoapServiceConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ws.client.WebServiceIOException;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RetryingRequestsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RetryingRequests retryingRequests;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, SoapServiceConfig> configs = new LinkedHashMap<>();
+        configs.put("idempotent", service(3, true));
+        configs.put("nonIdempotent", service(3, false));
+        configs.put("single", service(1, true));
+        configs.put("default", new SoapServiceConfig());
+        RequestPlanRegistry requestPlanRegistry = mock(RequestPlanRegistry.class);
+        when(requestPlanRegistry.getServiceConfigs()).thenReturn(configs);
+
+        retryingRequests = new RetryingRequests();
+        ReflectionTestUtils.setField(retryingRequests, "requestPlanRegistry", requestPlanRegistry);
+        ReflectionTestUtils.setField(retryingRequests, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(retryingRequests, "maxAttempts", 1);
+        ReflectionTestUtils.setField(retryingRequests, "initialBackoffMs", 0L);
+        ReflectionTestUtils.setField(retryingRequests, "maxBackoffMs", 0L);
+        ReflectionTestUtils.setField(retryingRequests, "budgetPercent", 50);
+        ReflectionTestUtils.setField(retryingRequests, "retryableStatuses", Collections.singletonList(503));
+        retryingRequests.init();
+    }
+
+    @Test
+    void retriesAreOptIn() {
+        assertThat(retryingRequests.isEnabled("idempotent")).isTrue();
+        assertThat(retryingRequests.isEnabled("single")).isFalse();
+        assertThat(retryingRequests.isEnabled("default")).isFalse();
+    }
+
+    @Test
+    void retriesUntilTheCallSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        byte[] response = retryingRequests.execute("nonIdempotent", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw connectionRefused();
+            }
+            return new byte[]{1};
+        });
+
+        assertThat(response).containsExactly(1);
+        assertThat(calls).hasValue(3);
+        assertThat(count("nonIdempotent", "retried")).isEqualTo(2);
+    }
+
+    @Test
+    void stopsAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryingRequests.execute("idempotent", failing(calls, connectionRefused())))
+                .isInstanceOf(WebServiceIOException.class);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void doesNotResendNonIdempotentRequestsThatMayHaveReachedTheBackend() {
+        AtomicInteger calls = new AtomicInteger();
+        WebServiceIOException reset = new WebServiceIOException("I/O error", new SocketException("Connection reset"));
+
+        assertThatThrownBy(() -> retryingRequests.execute("nonIdempotent", failing(calls, reset))).isSameAs(reset);
+        assertThat(calls).hasValue(1);
+
+        calls.set(0);
+        assertThatThrownBy(() -> retryingRequests.execute("idempotent", failing(calls, reset))).isSameAs(reset);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void servicesWithoutRetriesCallOnce() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryingRequests.execute("single", failing(calls, connectionRefused())))
+                .isInstanceOf(WebServiceIOException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    // The bucket starts with 10 tokens and each request adds 0.5 (50% budget), so of
+    // 20 failing requests in a row the first 19 get their retry and the last does not
+    @Test
+    void stopsRetryingOnceTheBudgetIsSpent() {
+        AtomicInteger calls = new AtomicInteger();
+        ReflectionTestUtils.invokeMethod(retryingRequests, "register", "twoAttempts", service(2, true));
+
+        for (int i = 0; i < 20; i++) {
+            assertThatThrownBy(() -> retryingRequests.execute("twoAttempts", failing(calls, connectionRefused())))
+                    .isInstanceOf(WebServiceIOException.class);
+        }
+
+        assertThat(count("twoAttempts", "retried")).isEqualTo(19);
+        assertThat(count("twoAttempts", "budget-exhausted")).isEqualTo(1);
+        assertThat(calls).hasValue(39);
+    }
+
+    private double count(String serviceName, String result) {
+        return meterRegistry.get("soap.proxy.retries").tag("service", serviceName).tag("result", result).counter().count();
+    }
+
+    private static Supplier<byte[]> failing(AtomicInteger calls, RuntimeException error) {
+        return () -> {
+            calls.incrementAndGet();
+            throw error;
+        };
+    }
+
+    private static WebServiceIOException connectionRefused() {
+        return new WebServiceIOException("I/O error", new ConnectException("Connection refused"));
+    }
+
+    private static SoapServiceConfig service(int retryMaxAttempts, boolean idempotent) {
+        SoapServiceConfig config = new SoapServiceConfig();
+        config.setRetryMaxAttempts(retryMaxAttempts);
+        config.setIdempotent(idempotent);
+        return config;
+    }
+}
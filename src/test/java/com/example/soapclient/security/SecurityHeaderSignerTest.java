@@ -0,0 +1,85 @@
+package com.example.soapclient.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SecurityHeaderSignerTest {
+
+    private static final long MINUTE_BUCKET = Instant.parse("2025-03-01T12:34:00Z").toEpochMilli() / 60_000L;
+
+    private KeyPair keyPair;
+
+    private SecurityHeaderSigner signer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        SigningKeyCache signingKeyCache = mock(SigningKeyCache.class);
+        when(signingKeyCache.getPrivateKey(anyString(), anyString(), anyString())).thenReturn(keyPair.getPrivate());
+
+        signer = new SecurityHeaderSigner();
+        ReflectionTestUtils.setField(signer, "signingKeyCache", signingKeyCache);
+        ReflectionTestUtils.setField(signer, "keystorePath", "classpath:test.jks");
+        ReflectionTestUtils.setField(signer, "keystorePassword", "secret");
+        ReflectionTestUtils.setField(signer, "keystoreAlias", "test");
+        signer.init();
+    }
+
+    @Test
+    void digestsTheUserInfo() throws Exception {
+        SecurityHeader header = signer.sign("alice", "corr-1", MINUTE_BUCKET);
+
+        assertThat(header.getUserInfo()).isEqualTo("USER=alice;CORR=corr-1;TIMESTAMP=202503011234");
+        byte[] digest = MessageDigest.getInstance("SHA1").digest(header.getUserInfo().getBytes(StandardCharsets.UTF_8));
+        assertThat(header.getDigestValue()).isEqualTo(Base64.getEncoder().encodeToString(digest));
+    }
+
+    // The precomputed prefix/suffix must sign exactly the bytes a full canonicalization
+    // of SignedInfo with the real digest would produce
+    @Test
+    void signsTheCanonicalSignedInfoWithTheRealDigest() throws Exception {
+        SecurityHeader header = signer.sign("alice", "corr-1", MINUTE_BUCKET);
+
+        String signedInfo = ((String) ReflectionTestUtils.getField(SecurityHeaderSigner.class, "SIGNED_INFO"))
+                .replace("DIGEST_VALUE_PLACEHOLDER", header.getDigestValue());
+        byte[] canonical = ReflectionTestUtils.invokeMethod(signer, "canonicalize", signedInfo);
+
+        Signature expected = Signature.getInstance("SHA1withRSA");
+        expected.initSign(keyPair.getPrivate());
+        expected.update(canonical);
+        assertThat(header.getSignatureValue()).isEqualTo(Base64.getEncoder().encodeToString(expected.sign()));
+
+        Signature verifier = Signature.getInstance("SHA1withRSA");
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(canonical);
+        assertThat(verifier.verify(Base64.getDecoder().decode(header.getSignatureValue()))).isTrue();
+    }
+
+    @Test
+    void sameInputsGiveTheSameHeader() throws Exception {
+        SecurityHeader first = signer.sign("alice", "corr-1", MINUTE_BUCKET);
+        SecurityHeader second = signer.sign("alice", "corr-1", MINUTE_BUCKET);
+        SecurityHeader nextMinute = signer.sign("alice", "corr-1", MINUTE_BUCKET + 1);
+
+        assertThat(second.getSignatureValue()).isEqualTo(first.getSignatureValue());
+        assertThat(nextMinute.getDigestValue()).isNotEqualTo(first.getDigestValue());
+        assertThat(nextMinute.getSignatureValue()).isNotEqualTo(first.getSignatureValue());
+    }
+}
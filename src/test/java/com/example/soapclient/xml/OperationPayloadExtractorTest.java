@@ -0,0 +1,123 @@
+package com.example.soapclient.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperationPayloadExtractorTest {
+
+    private static final String TARGET = "http://tempuri.org/";
+
+    private final OperationPayloadExtractor extractor = new OperationPayloadExtractor("<Add>", "</Add>", TARGET);
+
+    @Test
+    void movesPrefixedOperationIntoTargetNamespace() throws Exception {
+        Element add = extract("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                + " xmlns:cal=\"urn:client\"><soap:Body>"
+                + "<cal:Add><cal:intA>1</cal:intA><cal:intB>2</cal:intB></cal:Add>"
+                + "</soap:Body></soap:Envelope>");
+
+        assertName(add, TARGET, "Add");
+        assertName(child(add, 0), TARGET, "intA");
+        assertName(child(add, 1), TARGET, "intB");
+        assertThat(child(add, 1).getTextContent()).isEqualTo("2");
+    }
+
+    @Test
+    void movesDefaultNamespaceOperationIntoTargetNamespace() throws Exception {
+        Element add = extract("<Envelope><Body><Add xmlns=\"urn:client\"><intA>1</intA></Add></Body></Envelope>");
+
+        assertName(add, TARGET, "Add");
+        assertName(child(add, 0), TARGET, "intA");
+    }
+
+    @Test
+    void movesUnqualifiedOperationIntoTargetNamespace() throws Exception {
+        Element add = extract("<Add><intA>1</intA></Add>");
+
+        assertName(add, TARGET, "Add");
+        assertName(child(add, 0), TARGET, "intA");
+    }
+
+    @Test
+    void redeclaresPrefixesBoundOutsideTheOperation() throws Exception {
+        Element add = extract("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                + " xmlns:ext=\"urn:ext\"><soap:Body>"
+                + "<Add><ext:Note>n</ext:Note><intA ext:unit=\"cm\">1</intA></Add>"
+                + "</soap:Body></soap:Envelope>");
+
+        assertName(child(add, 0), "urn:ext", "Note");
+        assertThat(child(add, 0).getPrefix()).isEqualTo("ext");
+        Element intA = child(add, 1);
+        assertName(intA, TARGET, "intA");
+        assertThat(intA.getAttributeNS("urn:ext", "unit")).isEqualTo("cm");
+    }
+
+    @Test
+    void keepsForeignDefaultNamespaceAndRestoresItForSiblings() throws Exception {
+        Element add = extract("<Add xmlns=\"urn:client\">"
+                + "<Other xmlns=\"urn:other\"><value>v</value><c:intA xmlns:c=\"urn:client\">1</c:intA></Other>"
+                + "<intB>2</intB></Add>");
+
+        Element other = child(add, 0);
+        assertName(other, "urn:other", "Other");
+        assertName(child(other, 0), "urn:other", "value");
+        assertName(child(other, 1), TARGET, "intA");
+        assertName(child(add, 1), TARGET, "intB");
+    }
+
+    @Test
+    void keepsUnprefixedAndXmlAttributes() throws Exception {
+        Element add = extract("<Add xmlns=\"urn:client\"><intA id=\"a\" xml:lang=\"en\">1</intA></Add>");
+
+        Element intA = child(add, 0);
+        assertThat(intA.getAttributeNS(null, "id")).isEqualTo("a");
+        assertThat(intA.getAttributeNS(XMLConstants.XML_NS_URI, "lang")).isEqualTo("en");
+    }
+
+    @Test
+    void ignoresContentAfterTheOperation() throws Exception {
+        Element add = extract("<Body><Add><intA>1</intA></Add><Trailer/></Body>");
+
+        assertThat(add.getChildNodes().getLength()).isEqualTo(1);
+        assertThat(add.getOwnerDocument().getDocumentElement()).isSameAs(add);
+    }
+
+    @Test
+    void rejectsPayloadWithoutTheOperation() {
+        assertThatThrownBy(() -> extractor.extract(new StringReader("<Body><Subtract/></Body>")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("<Add>");
+    }
+
+    // Serialized and parsed again, so a missing namespace declaration in the
+    // rewritten fragment shows up as a wrong or unbound name
+    private Element extract(String payload) throws Exception {
+        StringWriter xml = new StringWriter();
+        XmlFactories.transform(extractor.extract(new StringReader(payload)), new StreamResult(xml));
+        return XmlFactories.parse(xml.toString()).getDocumentElement();
+    }
+
+    private static Element child(Element parent, int index) {
+        int elements = 0;
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && elements++ == index) {
+                return (Element) node;
+            }
+        }
+        throw new AssertionError("No child element " + index + " in " + parent.getLocalName());
+    }
+
+    private static void assertName(Element element, String namespaceUri, String localName) {
+        assertThat(element.getNamespaceURI()).isEqualTo(namespaceUri);
+        assertThat(element.getLocalName()).isEqualTo(localName);
+    }
+}